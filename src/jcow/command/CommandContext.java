@@ -10,26 +10,64 @@ import java.util.Map;
  */
 public class CommandContext implements IContext {
     
+    private CharSequence[] parameterViews;
     private String[] parameters;
     private Map<String, String> flags;
+    private FlagValues flagValues;
 
     public CommandContext(String[] parameters, Map<String, String> map) {
+        this.parameterViews = parameters;
         this.parameters = parameters;
         this.flags = map;
     }
 
+    public CommandContext(CharSequence[] parameters, Map<String, String> map) {
+        this.parameterViews = parameters;
+        this.flags = map;
+    }
+
+    public CommandContext(CharSequence[] parameters, FlagValues flags) {
+        this.parameterViews = parameters;
+        this.flagValues = flags;
+        this.flags = flags.asMap();
+    }
+
     @Override
     public String[] getParameters() {
+        // The strings are only constructed when someone actually asks for them
+        if(parameters == null) {
+            var strings = new String[parameterViews.length];
+            for (int i = 0; i < strings.length; i++)
+                strings[i] = parameterViews[i].toString();
+            parameters = strings;
+        }
         return parameters;
     }
 
+    @Override
+    public CharSequence[] getParameterViews() {
+        return parameterViews;
+    }
+
     @Override
     public Map<String, String> getFlags() {
         return flags;
     }
 
+    @Override
+    public FlagValues getFlagValues() {
+        return flagValues;
+    }
+
     @Override
     public void setParameters(String[] parameters) {
+        this.parameterViews = parameters;
         this.parameters = parameters;
     }
+
+    @Override
+    public void setParameterViews(CharSequence[] parameters) {
+        this.parameterViews = parameters;
+        this.parameters = null;
+    }
 }
@@ -0,0 +1,98 @@
+package jcow.command;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+
+import jcow.helpers.CommandHelper;
+
+/**
+ * The flags known up front for a command, each having a fixed ordinal. The flags of a command line
+ * are stored by their ordinal in {@link FlagValues}, such that reading a flag doesn't need a map.
+ * <br></br>
+ * The names of the flags are stored without their dashes, so "-verbose" and "--verbose" are the same flag.
+ *
+ * @author KOWI2003
+ */
+public final class FlagSchema {
+
+    /**
+     * The schema without any flags, for which all of the flags are stored as unknown flags
+     */
+    public static final FlagSchema EMPTY = new FlagSchema(new String[0]);
+
+    private final String[] names;
+
+    private FlagSchema(String[] names) {
+        this.names = names;
+    }
+
+    /**
+     * Creates the schema of the given flags, in the order they are given
+     * @param names the names of the flags, leading dashes are ignored
+     * @return the schema of the flags
+     */
+    public static FlagSchema of(Collection<String> names) {
+        var unique = new LinkedHashSet<String>();
+        for (var name : names)
+            unique.add(CommandHelper.getFlagName(name));
+        return unique.isEmpty() ? EMPTY : new FlagSchema(unique.toArray(String[]::new));
+    }
+
+    /**
+     * Creates the schema of the given flags, in the order they are given
+     * @param names the names of the flags, leading dashes are ignored
+     * @return the schema of the flags
+     */
+    public static FlagSchema of(String... names) {
+        return of(java.util.List.of(names));
+    }
+
+    /**
+     * Gets the amount of flags in the schema
+     * @return the amount of flags
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Gets the name of the flag with the ordinal
+     * @param ordinal the ordinal of the flag
+     * @return the name of the flag without dashes
+     */
+    public String getName(int ordinal) {
+        return names[ordinal];
+    }
+
+    /**
+     * Gets the ordinal of the flag, without constructing a string for it
+     * @param flag the flag, with or without its leading dashes
+     * @return the ordinal of the flag or -1 if the flag is not part of the schema
+     */
+    public int indexOf(CharSequence flag) {
+        int start = 0;
+        while(start < flag.length() && flag.charAt(start) == '-')
+            start++;
+
+        // Commands only have a handful of flags, for which comparing them directly beats hashing
+        var length = flag.length() - start;
+        for (int i = 0; i < names.length; i++) {
+            if(names[i].length() == length && regionMatches(flag, start, names[i]))
+                return i;
+        }
+        return -1;
+    }
+
+    private static boolean regionMatches(CharSequence flag, int start, String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if(flag.charAt(start + i) != name.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(", ", names);
+    }
+}
@@ -0,0 +1,185 @@
+package jcow.command;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The flags of a command line, stored in a slot per flag of a {@link FlagSchema}.
+ * Flags given without a value (switches like "--verbose") are kept in a bit set. Flags which are not part
+ * of the schema are kept aside, such that the {@link #asMap() map view} still contains every flag.
+ *
+ * @author KOWI2003
+ */
+public final class FlagValues {
+
+    private final FlagSchema schema;
+    // The flags as they were given (including dashes) and their values, by ordinal
+    private final CharSequence[] keys;
+    private final CharSequence[] values;
+    private final BitSet switches;
+    // The flags not in the schema, only created when there are any
+    private Map<String, String> unknown;
+    private Map<String, String> view;
+
+    FlagValues(FlagSchema schema) {
+        this.schema = schema;
+        this.keys = new CharSequence[schema.size()];
+        this.values = new CharSequence[schema.size()];
+        this.switches = new BitSet(schema.size());
+    }
+
+    /**
+     * Stores the value of the flag, replacing any value the flag had before
+     * @param flag the flag as it was given, including its dashes
+     * @param value the value of the flag or null for a switch
+     */
+    void put(CharSequence flag, CharSequence value) {
+        int ordinal = schema.indexOf(flag);
+        if(ordinal < 0) {
+            if(unknown == null)
+                unknown = new LinkedHashMap<>();
+            unknown.put(flag.toString(), value == null ? null : value.toString());
+            return;
+        }
+        keys[ordinal] = flag;
+        values[ordinal] = value;
+        switches.set(ordinal, value == null);
+    }
+
+    /**
+     * Gets the schema the flags are stored by
+     * @return the schema of the flags
+     */
+    public FlagSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Checks whether the flag with the ordinal has been given
+     * @param ordinal the ordinal of the flag in the schema
+     * @return whether the flag has been given
+     */
+    public boolean isSet(int ordinal) {
+        return keys[ordinal] != null;
+    }
+
+    /**
+     * Checks whether the flag with the ordinal has been given without a value
+     * @param ordinal the ordinal of the flag in the schema
+     * @return whether the flag is a switch
+     */
+    public boolean isSwitch(int ordinal) {
+        return switches.get(ordinal);
+    }
+
+    /**
+     * Gets the value of the flag with the ordinal
+     * @param ordinal the ordinal of the flag in the schema
+     * @return the value of the flag, or null if it is not set or is a switch
+     */
+    public CharSequence getValue(int ordinal) {
+        return values[ordinal];
+    }
+
+    /**
+     * Gets the flags as a map, the same as {@link IContext#getFlags()} where the keys include their dashes
+     * and switches have a null value. The map is an unmodifiable view of these flags
+     * @return the map view of the flags
+     */
+    public Map<String, String> asMap() {
+        if(view == null)
+            view = new MapView();
+        return view;
+    }
+
+    /**
+     * Finds the ordinal of the flag, which must be given exactly as it is in the command line
+     * @param key the flag including its dashes
+     * @return the ordinal or -1 if the flag is not set
+     */
+    private int findSet(Object key) {
+        if(!(key instanceof String flag))
+            return -1;
+        int ordinal = schema.indexOf(flag);
+        return ordinal >= 0 && keys[ordinal] != null && flag.contentEquals(keys[ordinal]) ? ordinal : -1;
+    }
+
+    private final class MapView extends AbstractMap<String, String> {
+
+        @Override
+        public boolean containsKey(Object key) {
+            return findSet(key) >= 0 || (unknown != null && unknown.containsKey(key));
+        }
+
+        @Override
+        public String get(Object key) {
+            int ordinal = findSet(key);
+            if(ordinal >= 0)
+                return values[ordinal] == null ? null : values[ordinal].toString();
+            return unknown == null ? null : unknown.get(key);
+        }
+
+        @Override
+        public int size() {
+            int size = unknown == null ? 0 : unknown.size();
+            for (var key : keys) {
+                if(key != null)
+                    size++;
+            }
+            return size;
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return MapView.this.size();
+                }
+            };
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<String, String>> {
+
+        private int ordinal = nextSet(0);
+        private final Iterator<Map.Entry<String, String>> others = unknown == null ? Collections.emptyIterator() 
+            : Collections.unmodifiableMap(unknown).entrySet().iterator();
+
+        private int nextSet(int from) {
+            while(from < keys.length && keys[from] == null)
+                from++;
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return ordinal < keys.length || others.hasNext();
+        }
+
+        @Override
+        public Map.Entry<String, String> next() {
+            if(ordinal < keys.length) {
+                var value = values[ordinal];
+                var entry = new AbstractMap.SimpleImmutableEntry<>(keys[ordinal].toString(), value == null ? null : value.toString());
+                ordinal = nextSet(ordinal + 1);
+                return entry;
+            }
+            if(!others.hasNext())
+                throw new NoSuchElementException();
+            return others.next();
+        }
+    }
+}
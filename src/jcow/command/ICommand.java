@@ -2,6 +2,7 @@ package jcow.command;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface ICommand {
     
@@ -12,6 +13,20 @@ public interface ICommand {
      */
     String invoke(IContext context);
 
+    /**
+     * Invokes the command with the given parameters without waiting for the result, such that commands
+     * waiting on I/O don't have to hold a thread. By default the command is invoked on the calling thread
+     * @param context the parameters to invoke the command with
+     * @return the future result of the command, completed exceptionally when the command fails
+     */
+    default CompletableFuture<String> invokeAsync(IContext context) {
+        try {
+            return CompletableFuture.completedFuture(invoke(context));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     /**
      * Returns a list of possible completions for the given context
      * @param context the context to complete
@@ -27,4 +42,24 @@ public interface ICommand {
      */
     default String getUsage() { return ""; } 
 
+    /**
+     * Gets the flags the command reads, such that the flags of a command line can be stored
+     * by their ordinal before the command is invoked
+     * @return the schema of the flags or null if the flags of the command are not known
+     */
+    default FlagSchema getFlagSchema() { return null; }
+
+    /**
+     * Gets the other names the command can be called by, besides the name it is registered with
+     * @return the aliases of the command
+     */
+    default Collection<String> getAliases() { return List.of(); }
+
+    /**
+     * Whether the command has to run on its own when commands are executed in bulk, such that
+     * it sees the effects of all of the commands before it
+     * @return whether the command is sequential
+     */
+    default boolean isSequential() { return false; }
+
 }
@@ -25,10 +25,39 @@ public interface IContext {
      */
     Map<String, String> getFlags();
 
+    /**
+     * Gets the flags of the command stored by the {@link FlagSchema schema} of the command,
+     * which allows reading a flag by its ordinal instead of through the map of {@link #getFlags()}
+     * @return the flags by their ordinals, or null if the flags are only available as a map
+     */
+    default FlagValues getFlagValues() {
+        return null;
+    }
+
     /**
      * Sets the parameters of the command
      * @param parameters an array of the parameters of the command
      */
     void setParameters(String[] parameters);
+
+    /**
+     * Gets the parameters of the command in the order they were given as views of the command line,
+     * such that no string has to be constructed for parameters that are not read as a string
+     * @return an array of the parameters of the command
+     */
+    default CharSequence[] getParameterViews() {
+        return getParameters();
+    }
+
+    /**
+     * Sets the parameters of the command as views of the command line
+     * @param parameters an array of the parameters of the command
+     */
+    default void setParameterViews(CharSequence[] parameters) {
+        var strings = new String[parameters.length];
+        for (int i = 0; i < parameters.length; i++)
+            strings[i] = parameters[i].toString();
+        setParameters(strings);
+    }
     
 }
@@ -0,0 +1,149 @@
+package jcow.command;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+import jcow.helpers.CommandHelper;
+import jcow.helpers.CommandParseException;
+import jcow.helpers.ParameterParseException;
+
+/**
+ * An immutable command line which has been split into the command name, its positional arguments and its flags.
+ * A command line is parsed once into this model after which it can be passed along to the handlers,
+ * such that routing and invoking the command never has to split the command line again.
+ *
+ * @author KOWI2003
+ */
+public final class ParsedCommand {
+
+    private final String line;
+    private final String name;
+    private final CharSequence[] arguments;
+    // The flags are only located while parsing, they are stored once the schema of the command is known
+    private final CharSequence[] splits;
+    private final int[] flagPositions;
+    private Map<String, String> flags;
+
+    private ParsedCommand(String line, String name, CharSequence[] arguments, CharSequence[] splits, int[] flagPositions) {
+        this.line = line;
+        this.name = name;
+        this.arguments = arguments;
+        this.splits = splits;
+        this.flagPositions = flagPositions;
+    }
+
+    /**
+     * Parses the command line into its name, arguments and flags in a single walk over the parameters.
+     * For the rules used to split the parameters see {@link CommandHelper#splitParameters(String) splitParameters}
+     * and for the rules of the flags see {@link CommandHelper#getOptionals(CharSequence[]) getOptionals}
+     * @param line the complete command line
+     * @return the parsed command
+     * @throws CommandParseException if the command is empty
+     * @throws ParameterParseException if parsing of the parameters failed, usually the case when a group has an opening character but not a closing character
+     */
+    public static ParsedCommand parse(String line) {
+        if(line == null || line.isEmpty())
+            throw new CommandParseException("Can't parse an empty command!", line, 0);
+
+        var splits = CommandHelper.splitParameterViews(line);
+        if(splits.length == 0)
+            throw new CommandParseException("Can't parse an empty command!", line, 0);
+
+        var arguments = new ArrayList<CharSequence>(splits.length - 1);
+        var flagPositions = new int[splits.length];
+        int flagCount = 0;
+        for (int i = 1; i < splits.length; i++) {
+            var param = splits[i];
+            if(CommandHelper.startsWith(param, "--")) {
+                flagPositions[flagCount++] = i;
+            }else if(CommandHelper.startsWith(param, "-")) {
+                if(i+1 >= splits.length)
+                    throw new ParameterParseException("Failed to parse command parameters as the optional parameter [" + param + "] has no value!", CommandHelper.toStrings(splits), i);
+                flagPositions[flagCount++] = i++;
+            }else {
+                arguments.add(param);
+            }
+        }
+        return new ParsedCommand(line, splits[0].toString(), arguments.toArray(CharSequence[]::new), splits, Arrays.copyOf(flagPositions, flagCount));
+    }
+
+    /**
+     * Gets the complete command line this command was parsed from
+     * @return the command line
+     */
+    public String getLine() {
+        return line;
+    }
+
+    /**
+     * Gets the name of the command, which is the first parameter of the command line
+     * @return the name of the command
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the positional arguments of the command, meaning all of the parameters after the name
+     * which are not flags or flag values
+     * @return a copy of the arguments of the command
+     */
+    public CharSequence[] getArguments() {
+        return Arrays.copyOf(arguments, arguments.length);
+    }
+
+    /**
+     * Gets the amount of positional arguments of the command
+     * @return the amount of arguments
+     */
+    public int getArgumentCount() {
+        return arguments.length;
+    }
+
+    /**
+     * Gets the flags of the command, mapped the same way as {@link IContext#getFlags()}
+     * @return an unmodifiable map of the flags
+     */
+    public Map<String, String> getFlags() {
+        if(flags == null)
+            flags = getFlagValues(FlagSchema.EMPTY).asMap();
+        return flags;
+    }
+
+    /**
+     * Stores the flags of the command by the ordinals of the schema
+     * @param schema the flags known to the command
+     * @return the values of the flags
+     */
+    public FlagValues getFlagValues(FlagSchema schema) {
+        var values = new FlagValues(schema);
+        for (var position : flagPositions) {
+            var flag = splits[position];
+            values.put(flag, CommandHelper.startsWith(flag, "--") ? null : splits[position + 1]);
+        }
+        return values;
+    }
+
+    /**
+     * Creates a new context for an invocation of this command
+     * @return the context containing the arguments and the flags of this command
+     */
+    public IContext createContext() {
+        return createContext(FlagSchema.EMPTY);
+    }
+
+    /**
+     * Creates a new context for an invocation of this command, storing the flags by the schema of the command
+     * @param schema the flags known to the command, or null if they are not known
+     * @return the context containing the arguments and the flags of this command
+     */
+    public IContext createContext(FlagSchema schema) {
+        return new CommandContext(arguments, getFlagValues(schema == null ? FlagSchema.EMPTY : schema));
+    }
+
+    @Override
+    public String toString() {
+        return line;
+    }
+}
@@ -1,7 +1,11 @@
 package jcow.command;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.function.Supplier;
 
+import jcow.helpers.CommandHelper;
+
 /**
  * Allows for creating a simple command without the needing a special class and interface
  * implementation for it
@@ -12,19 +16,46 @@ public class SimpleCommand implements ICommand {
 
     private final Runnable action;
     private final Supplier<String> actionResult;
+    private final Supplier<? extends CompletionStage<String>> asyncResult;
 
     public SimpleCommand(Runnable action) {
-        this.actionResult = null;
-        this.action = action;
+        this(action, null, null);
     }
 
     public SimpleCommand(Supplier<String> action) {
-        this.action = null;
-        this.actionResult = action;
+        this(null, action, null);
+    }
+
+    private SimpleCommand(Runnable action, Supplier<String> actionResult, Supplier<? extends CompletionStage<String>> asyncResult) {
+        this.action = action;
+        this.actionResult = actionResult;
+        this.asyncResult = asyncResult;
+    }
+
+    /**
+     * Creates a command of which the result completes later, such that the command doesn't hold a thread while it waits
+     * @param action the action starting the command and returning its future result
+     * @return the command
+     */
+    public static SimpleCommand async(Supplier<? extends CompletionStage<String>> action) {
+        return new SimpleCommand(null, null, action);
+    }
+
+    @Override
+    public CompletableFuture<String> invokeAsync(IContext context) {
+        if(asyncResult == null)
+            return ICommand.super.invokeAsync(context);
+        try {
+            return asyncResult.get().toCompletableFuture();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
     }
 
     @Override
     public String invoke(IContext context) {
+        if(asyncResult != null)
+            return CommandHelper.await(invokeAsync(context));
         if(action != null)
             action.run();
         if(actionResult != null)
@@ -30,4 +30,11 @@ public @interface Command {
      */
     String[] alias() default {}; 
 
+    /**
+     * Defines whether the command has to run on its own when commands are executed in bulk,
+     * meaning it waits for all of the commands before it and the commands after it wait for it
+     * @return whether the command is sequential
+     */
+    boolean sequential() default false;
+
 }
@@ -5,6 +5,12 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+/**
+ * Binds the parameter of a controller to the {@link jcow.command.IContext context} of the command
+ * instead of a positional argument. The parameter is null if the context is not of the parameter type.
+ * 
+ * @author KOWI2003
+ */
 @Target(ElementType.PARAMETER)
 @Retention(RetentionPolicy.RUNTIME)
 public @interface FromContext {
@@ -5,10 +5,21 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+/**
+ * Binds the parameter of a controller to the value of a flag instead of a positional argument.
+ * The flag may be given with one or two dashes, where a boolean flag given without a value is true.
+ * When the flag is not given the parameter is null, or zero and false for primitives.
+ * 
+ * @author KOWI2003
+ */
 @Target(ElementType.PARAMETER)
 @Retention(RetentionPolicy.RUNTIME)
 public @interface FromFlag {
     
+    /**
+     * The name of the flag, leading dashes are ignored
+     * @return the name of the flag
+     */
     String value();
 
 }
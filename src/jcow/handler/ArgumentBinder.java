@@ -0,0 +1,236 @@
+package jcow.handler;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+import jcow.command.IContext;
+import jcow.command.annotations.FromContext;
+import jcow.command.annotations.FromFlag;
+import jcow.handler.types.TypeParser;
+import jcow.handler.types.TypeParsers;
+import jcow.helpers.CommandHelper;
+import jcow.helpers.ReflectionHelper;
+import jcow.utils.Lazy;
+import jcow.utils.ParameterReader;
+
+/**
+ * Binds a single parameter of a controller method to its value, read from the arguments of the command.
+ * The binder of each parameter is chosen once when the command is wrapped, such that no lookups are
+ * needed for the parameters when the command is invoked.
+ *
+ * @author KOWI2003
+ */
+@FunctionalInterface
+interface ArgumentBinder {
+
+    /**
+     * Where the value of a parameter comes from
+     */
+    enum Source {
+        /** A single positional argument, or the amount a type parser reads */
+        TOKEN,
+        /** All of the remaining positional arguments */
+        REMAINING,
+        /** A flag of the command */
+        FLAG,
+        /** The context of the command itself */
+        CONTEXT;
+
+        /**
+         * Whether the parameter is bound from the positional arguments
+         * @return whether the source is positional
+         */
+        boolean isPositional() {
+            return this == TOKEN || this == REMAINING;
+        }
+    }
+
+    /**
+     * Reads the value of the parameter
+     * @param context the context of the command
+     * @param reader the reader of the arguments, positioned at the arguments of the parameter
+     * @return the value of the parameter
+     */
+    Object bind(IContext context, ParameterReader reader);
+
+    /**
+     * Checks whether a parameter of the type reads all of the remaining arguments, which are
+     * arrays (including varargs) and lists
+     * @param type the type of the parameter
+     * @return whether the parameter takes the remaining arguments
+     */
+    static boolean isAggregate(Class<?> type) {
+        return type.isArray() || type == List.class || type == Collection.class || type == Iterable.class;
+    }
+
+    /**
+     * Checks whether a parameter of the type is parsed only when the controller reads it
+     * @param type the type of the parameter
+     * @return whether the parameter is lazy
+     */
+    static boolean isLazy(Class<?> type) {
+        return type == Supplier.class || type == Lazy.class;
+    }
+
+    /**
+     * Gets the type the arguments of the parameter are parsed as, which is the type of the value for lazy parameters
+     * @param parameter the parameter
+     * @return the type the arguments are parsed as
+     */
+    static Class<?> getBoundType(Parameter parameter) {
+        return isLazy(parameter.getType()) ? getTypeArgument(parameter.getParameterizedType()) : parameter.getType();
+    }
+
+    /**
+     * Gets where the value of the parameter comes from
+     * @param parameter the parameter
+     * @return the source of the value
+     */
+    static Source getSource(Parameter parameter) {
+        if(parameter.isAnnotationPresent(FromContext.class))
+            return Source.CONTEXT;
+        if(parameter.isAnnotationPresent(FromFlag.class))
+            return Source.FLAG;
+        return isAggregate(getBoundType(parameter)) ? Source.REMAINING : Source.TOKEN;
+    }
+
+    /**
+     * Creates the binder of the parameter, where a parameter annotated with {@link FromContext} gets the context
+     * and a parameter annotated with {@link FromFlag} the value of the flag. A {@link Supplier} or {@link Lazy}
+     * parameter takes its argument right away, but only parses it when the value is read.
+     * Otherwise see {@link #of(Class, Type)}
+     * @param parameter the parameter to bind
+     * @return the binder of the parameter
+     * @throws IllegalArgumentException if no type parser has been registered for the type of the parameter
+     */
+    static ArgumentBinder of(Parameter parameter) {
+        var type = parameter.getType();
+        if(parameter.isAnnotationPresent(FromContext.class)) {
+            if(type.isAssignableFrom(IContext.class))
+                return (context, reader) -> context;
+            return (context, reader) -> type.isInstance(context) ? context : null;
+        }
+        var flag = parameter.getAnnotation(FromFlag.class);
+        if(flag != null)
+            return new FlagBinder(CommandHelper.getFlagName(flag.value()), type, parameter.getParameterizedType());
+
+        if(isLazy(type)) {
+            var valueType = parameter.getParameterizedType() instanceof ParameterizedType lazy ? lazy.getActualTypeArguments()[0] : String.class;
+            var rawType = TypeParsers.getRawType(valueType);
+            return ofLazy(of(rawType, valueType), rawType != null && isAggregate(rawType));
+        }
+        return of(type, parameter.getParameterizedType());
+    }
+
+    /**
+     * Creates the binder of the type, reading primitives through their dedicated reader,
+     * arrays and lists from all of the remaining arguments and any other type through its
+     * {@link TypeParsers registered} type parser. The binder of the elements of an array or list
+     * is created together with the binder of the array or list
+     * @param type the type to bind
+     * @param genericType the generic type to bind
+     * @return the binder of the type
+     * @throws IllegalArgumentException if no type parser has been registered for the type
+     */
+    static ArgumentBinder of(Class<?> type, Type genericType) {
+        if(type == null || type == Object.class)
+            type = String.class;
+        if(type == String.class)
+            return (context, reader) -> reader.readString();
+        if(type == int.class || type == Integer.class)
+            return (context, reader) -> reader.readInt();
+        if(type == long.class || type == Long.class)
+            return (context, reader) -> reader.readLong();
+        if(type == double.class || type == Double.class)
+            return (context, reader) -> reader.readDouble();
+        if(type == boolean.class || type == Boolean.class)
+            return (context, reader) -> reader.readBoolean();
+        if(type == float.class || type == Float.class)
+            return (context, reader) -> reader.readFloat();
+        if(type == char.class || type == Character.class)
+            return (context, reader) -> reader.readChar();
+        if(type == short.class || type == Short.class)
+            return (context, reader) -> reader.readShort();
+        if(type == byte.class || type == Byte.class)
+            return (context, reader) -> reader.readByte();
+
+        if(type.isArray())
+            return ofArray(type.getComponentType());
+        if(isAggregate(type)) {
+            var elementType = getTypeArgument(genericType);
+            // Numbers may be comma separated, which the reader splits without parsing each element on its own
+            if(ReflectionHelper.isNumber(elementType))
+                return (context, reader) -> reader.readList(elementType);
+            var element = ofElement(elementType);
+            return (context, reader) -> reader.readList(element);
+        }
+
+        var parser = TypeParsers.get(genericType);
+        if(parser == null)
+            throw new IllegalArgumentException("No type parser has been registered for " + genericType.getTypeName());
+        return parser::parse;
+    }
+
+    /**
+     * Creates the binder of a lazy value, which takes a single argument (or all of the remaining arguments
+     * for arrays and lists) and parses them with the binder of the value when the value is read
+     * @param value the binder of the value
+     * @param remaining whether the value takes all of the remaining arguments
+     * @return the binder of the lazy value
+     */
+    private static ArgumentBinder ofLazy(ArgumentBinder value, boolean remaining) {
+        return (context, reader) -> {
+            var arguments = remaining ? reader.readRemainingViews() : new CharSequence[] { reader.readView() };
+            return Lazy.of(() -> value.bind(context, new ParameterReader(context, arguments)));
+        };
+    }
+
+    private static ArgumentBinder ofArray(Class<?> componentType) {
+        if(componentType == int.class)
+            return (context, reader) -> reader.readIntArray();
+        if(componentType == long.class)
+            return (context, reader) -> reader.readLongArray();
+        if(componentType == double.class)
+            return (context, reader) -> reader.readDoubleArray();
+        if(ReflectionHelper.isNumber(componentType))
+            return (context, reader) -> reader.readArray(componentType);
+
+        var element = ofElement(componentType);
+        return (context, reader) -> {
+            var elements = reader.readList(element);
+            var result = Array.newInstance(componentType, elements.size());
+            for (int i = 0; i < elements.size(); i++)
+                Array.set(result, i, elements.get(i));
+            return result;
+        };
+    }
+
+    /**
+     * Creates the parser of the elements of an array or list, which reads the elements through their binder
+     * @param elementType the type of the elements
+     * @return the parser of the elements
+     */
+    private static TypeParser<?> ofElement(Class<?> elementType) {
+        var binder = of(elementType, elementType);
+        return binder::bind;
+    }
+
+    /**
+     * Gets the type argument of a list or lazy type, where the type argument of a raw type is a string
+     * @param genericType the generic type
+     * @return the raw type of the type argument
+     */
+    private static Class<?> getTypeArgument(Type genericType) {
+        if(genericType instanceof ParameterizedType parameterized) {
+            var elementType = TypeParsers.getRawType(parameterized.getActualTypeArguments()[0]);
+            if(elementType != null && elementType != Object.class)
+                return elementType;
+        }
+        return String.class;
+    }
+}
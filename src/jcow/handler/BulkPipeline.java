@@ -0,0 +1,102 @@
+package jcow.handler;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executes a stream of command lines in bulk. The lines are read in batches which are tokenized and dispatched
+ * in parallel on a pool of workers, after which the output is delivered in the order of the input.
+ * At most a window of batches is undelivered at a time, which bounds the output held back for slower batches before it.
+ * <br></br>
+ * A {@link jcow.command.ICommand#isSequential() sequential} command waits for all of the commands before it and runs on its own.
+ *
+ * @author KOWI2003
+ */
+final class BulkPipeline {
+
+    private static final int BATCH_SIZE = 256;
+
+    private final InterfaceHandler ui;
+    private final int workers;
+    private final int window;
+
+    /**
+     * Creates a pipeline dispatching to the handlers of the interface
+     * @param ui the interface of which the handlers execute the commands and which delivers the output
+     * @param workers the amount of worker threads
+     * @param window the maximum amount of batches which are executed or waiting to be delivered
+     */
+    BulkPipeline(InterfaceHandler ui, int workers, int window) {
+        if(workers <= 0 || window <= 0)
+            throw new IllegalArgumentException("The amount of workers and the window should be positive!");
+        this.ui = ui;
+        this.workers = workers;
+        this.window = window;
+    }
+
+    /**
+     * Executes the lines of the reader until the end of the input or until the thread is interrupted,
+     * returning once the output of all of the executed lines has been delivered
+     * @param reader the reader of the command lines
+     * @throws IOException if the input can not be read
+     */
+    void run(BufferedReader reader) throws IOException {
+        var sequencer = new OutputSequencer(ResultOrder.SUBMISSION, ui::deliver);
+        var executor = Executors.newFixedThreadPool(workers);
+        try {
+            var batch = new ArrayList<String>(BATCH_SIZE);
+            String line;
+            while(!Thread.currentThread().isInterrupted() && (line = reader.readLine()) != null) {
+                if(!ui.isSequential(line)) {
+                    batch.add(line);
+                    if(batch.size() == BATCH_SIZE) {
+                        submit(executor, sequencer, batch);
+                        batch = new ArrayList<>(BATCH_SIZE);
+                    }
+                    continue;
+                }
+
+                // Runs the sequential command once everything before it has been delivered
+                submit(executor, sequencer, batch);
+                batch = new ArrayList<>(BATCH_SIZE);
+                sequencer.awaitPending(0);
+                var output = execute(List.of(line));
+                sequencer.complete(sequencer.take(), output);
+            }
+            submit(executor, sequencer, batch);
+            sequencer.awaitPending(0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void submit(ExecutorService executor, OutputSequencer sequencer, List<String> batch) throws InterruptedException {
+        if(batch.isEmpty())
+            return;
+        sequencer.awaitPending(window - 1);
+        var ticket = sequencer.take();
+        executor.execute(() -> {
+            List<OutputSequencer.Output> output = List.of();
+            try {
+                output = execute(batch);
+            } finally {
+                sequencer.complete(ticket, output);
+            }
+        });
+    }
+
+    private List<OutputSequencer.Output> execute(List<String> lines) {
+        var output = new ArrayList<OutputSequencer.Output>(lines.size());
+        for (var line : lines) {
+            for (var result : ui.handleCommand(line, error -> output.add(new OutputSequencer.Output(error, true))))
+                output.add(new OutputSequencer.Output(result, false));
+        }
+        return output;
+    }
+}
@@ -1,21 +1,43 @@
 package jcow.handler;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintStream;
-import java.util.Scanner;
+import java.io.Writer;
+import java.nio.charset.Charset;
 
 /**
  * A simple console based interface implementation.
+ * <br></br>
+ * The input is read line by line until the end of the input or until the interface is stopped, where stopping
+ * takes effect once the line being waited for has been read. The output is buffered while more input is ready,
+ * such that piping a file of commands doesn't flush the output for every command, and is flushed as soon as
+ * the interface waits for input.
+ * <br></br>
+ * The input stream is not closed by the interface, such that a stream like {@link System#in} can still be read afterwards.
+ * <br></br>
+ * For piped input the interface can be set to {@link CLIHandler#enableBulkMode() bulk mode}, in which the commands
+ * are executed in parallel by a {@link BulkPipeline} while the output stays in the order of the input.
+ *
  * @author KOWI2003
  */
 public class CLIHandler extends InterfaceHandler {
 
-    // Internal Stream handling
-    private final InputStream in;
-    private final PrintStream out;
-    private final PrintStream err;
-    
-    // Settings
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // Internal Stream handling, the reader is kept such that input it has buffered is not lost when the interface is stopped
+    private final BufferedReader in;
+    private final Writer out;
+    private final Writer err;
+
+    // Whether more input is ready, in which case the output is not flushed for every line
+    private volatile boolean batching;
+    private volatile BulkPipeline bulkPipeline;
 
     public CLIHandler() {
         this(System.in, System.out , System.err);
@@ -26,29 +48,115 @@ public class CLIHandler extends InterfaceHandler {
     }
 
     public CLIHandler(InputStream in, PrintStream out, PrintStream err) {
-        this.in = in;
-        this.out = out;
-        this.err = err;
+        this(in, out, err, Charset.defaultCharset());
+    }
 
+    /**
+     * Creates an interface reading and writing text in the given charset
+     * @param in the input to read the commands from [not null]
+     * @param out the output to write the results to [not null]
+     * @param err the output to write the errors to, may be the same as the output
+     * @param charset the charset of the input and the output
+     */
+    public CLIHandler(InputStream in, PrintStream out, PrintStream err, Charset charset) {
         if(in == null || out == null)
             throw new IllegalArgumentException("The input and the output streams should not be null!");
+
+        this.in = new BufferedReader(new InputStreamReader(in, charset), BUFFER_SIZE);
+        this.out = new BufferedWriter(new OutputStreamWriter(out, charset), BUFFER_SIZE);
+        // Errors written to the same stream share the buffer, so they stay in order with the results
+        this.err = err == null || err == out ? this.out : new BufferedWriter(new OutputStreamWriter(err, charset), BUFFER_SIZE);
+    }
+
+    /**
+     * Executes the input in bulk, with a worker for every processor
+     */
+    public void enableBulkMode() {
+        int workers = Runtime.getRuntime().availableProcessors();
+        enableBulkMode(workers, workers * 4);
+    }
+
+    /**
+     * Executes the input in bulk, meant for input piped from a file or another process rather than a terminal.
+     * The lines are executed in parallel and the output is written in the order of the input once the input ends
+     * or the output buffer is full
+     * @param workers the amount of worker threads
+     * @param window the maximum amount of batches of lines which are executed or waiting for the output before them
+     */
+    public void enableBulkMode(int workers, int window) {
+        this.bulkPipeline = new BulkPipeline(this, workers, window);
+    }
+
+    /**
+     * Executes the input line by line again
+     */
+    public void disableBulkMode() {
+        this.bulkPipeline = null;
     }
 
     @Override
     protected void handle() {
-        try(var stream = new Scanner(in)) {
-            while(true) {
-                if(stream.hasNext()) {
-                    var results = handleCommand(stream.nextLine());
-                    for (var result : results)
-                        out.println(result);
-                }
+        try {
+            var bulk = bulkPipeline;
+            if(bulk != null) {
+                batching = true;
+                bulk.run(in);
+                return;
+            }
+
+            String line;
+            while(!Thread.currentThread().isInterrupted() && (line = in.readLine()) != null) {
+                batching = in.ready();
+                dispatchCommand(line);
+                if(!batching)
+                    flush();
             }
+        } catch (InterruptedIOException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            printError("Failed to read the input: " + e.getMessage());
+        } finally {
+            batching = false;
+            flush();
         }
     }
 
     @Override
     protected void printError(String error) {
-        err.println(error);
+        write(err, error);
+    }
+
+    @Override
+    protected void printResult(String result) {
+        write(out, result);
+    }
+
+    private void write(Writer writer, String text) {
+        try {
+            synchronized (writer) {
+                writer.write(String.valueOf(text));
+                writer.write(System.lineSeparator());
+                if(!batching)
+                    writer.flush();
+            }
+        } catch (IOException e) {
+            // The streams are print streams, which don't report their failures
+        }
+    }
+
+    /**
+     * Writes the buffered output to the streams
+     */
+    public void flush() {
+        try {
+            synchronized (out) {
+                out.flush();
+            }
+            synchronized (err) {
+                err.flush();
+            }
+        } catch (IOException e) {
+            // The streams are print streams, which don't report their failures
+        }
     }
 }
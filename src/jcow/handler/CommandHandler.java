@@ -1,26 +1,43 @@
 package jcow.handler;
 
-import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 
-import jcow.command.CommandContext;
 import jcow.command.ICommand;
-import jcow.helpers.CommandHelper;
+import jcow.command.ParsedCommand;
 import jcow.helpers.CommandParseException;
 import jcow.helpers.ParameterParseException;
+import jcow.utils.NameTrie;
 
+/**
+ * A handler of the commands registered by name. The names and the {@link ICommand#getAliases() aliases}
+ * of the commands are indexed together, where a command may be called by any prefix of its names which
+ * no other command shares.
+ * <br></br>
+ * The handler is thread safe. The commands are kept in an immutable snapshot which is replaced atomically
+ * on every change, so commands can be registered and unregistered while other threads invoke commands
+ * without any of them taking a lock.
+ *
+ * @author KOWI2003
+ */
 public class CommandHandler implements ICommandHandler {
     
-    private final Map<String, ICommand> commands;
+    private final AtomicReference<Registry> registry;
 
     public CommandHandler() {
-        this(new HashMap<>());
+        this.registry = new AtomicReference<>(Registry.EMPTY);
     }
 
     public CommandHandler(Map<String, ICommand> commands) {
-        this.commands = new HashMap<>(commands);
+        var initial = Registry.EMPTY;
+        for (var command : commands.entrySet()) {
+            var updated = initial.with(command.getKey(), command.getValue());
+            if(updated != null)
+                initial = updated;
+        }
+        this.registry = new AtomicReference<>(initial);
     }
 
     /**
@@ -29,40 +46,97 @@ public class CommandHandler implements ICommandHandler {
      * @return whether the command can be handled
      */
     public boolean canHandle(String command) {
-        if(command == null || command.isEmpty())
+        if(command == null || command.isBlank())
             return false;
-    
-        var commandName = CommandHelper.splitParameters(command)[0];
-        return commands.containsKey(commandName);
+        try {
+            return canHandle(ParsedCommand.parse(command));
+        } catch (CommandParseException e) {
+            // A command which can't be parsed can't be handled either
+            return false;
+        }
+    }
+
+    @Override
+    public boolean canHandle(ParsedCommand command) {
+        return findCommand(command.getName()) != null;
     }
 
     /**
      * Registers a new command to the command handler.
      * But it can only register a command if there is no command already registered 
-     * with the same command name.
+     * with the same command name or alias. The aliases of the command which are already
+     * in use are skipped.
      * @param name the name of the command 
      * @param command the command to register
      * @return whether the command has been registered.
      */
     public boolean register(String name, ICommand command) {
-        if(commands.containsKey(name))
-            return false;
-        commands.put(name, command);
+        Registry current;
+        Registry updated;
+        do {
+            current = registry.get();
+            updated = current.with(name, command);
+            if(updated == null)
+                return false;
+        } while(!registry.compareAndSet(current, updated));
         return true;
     }
 
     /**
-     * Gets a command by its registered name
-     * Note this does not handle aliases
+     * Unregisters the command with the name, together with the aliases of the command
+     * @param name the name the command was registered with
+     * @return the unregistered command or null if no command is registered with the name
+     */
+    public ICommand unregister(String name) {
+        Registry current;
+        Registry updated;
+        ICommand command;
+        do {
+            current = registry.get();
+            command = current.names().get(name);
+            if(command == null)
+                return null;
+
+            var index = current.index().without(name);
+            for (var alias : command.getAliases()) {
+                // An alias may also be in use by another command
+                if(index.get(alias) == command)
+                    index = index.without(alias);
+            }
+            updated = new Registry(current.names().without(name), index);
+        } while(!registry.compareAndSet(current, updated));
+        return command;
+    }
+
+    /**
+     * Gets a command by its registered name, one of its aliases or a prefix of those which is unique to the command
      * @param name the name of the command
      * @return the command corresponding with the name
+     * @throws NoSuchCommandException if no command, or more than one command, matches the name
      */
     public ICommand getCommand(String name) {
-        if(commands.containsKey(name))
-            return commands.get(name);
+        var command = findCommand(name);
+        if(command != null)
+            return command;
         throw new NoSuchCommandException("No command with the name '" + name + "' exists for this handler! did you type it correctly and did you use the correct handler?", name);
     }
 
+    /**
+     * Finds a command by its registered name, one of its aliases or a prefix of those which is unique to the command,
+     * without constructing a string of the name
+     * @param name the name of the command
+     * @return the command corresponding with the name or null if no command, or more than one command, matches the name
+     */
+    public ICommand findCommand(CharSequence name) {
+        return registry.get().index().getByPrefix(name);
+    }
+
+    @Override
+    public boolean isSequential(CharSequence name) {
+        var command = findCommand(name);
+        return command != null && command.isSequential();
+    }
+
     /**
      * Invokes a command from the command string.
      * @param command the complete command string 
@@ -71,22 +145,61 @@ public class CommandHandler implements ICommandHandler {
      * @throws ParameterParseException if parsing of the parameters failed, usually the case when a group has an opening character but not a closing character
      */
     public String invoke(String command) {
-        if(command == null || command.isEmpty())
-            throw new CommandParseException("Can't parse an empty command!", command, 0);
-        
-        var splits = CommandHelper.splitParameters(command);
-        var commandName = splits[0];
-        var cmd = getCommand(commandName);
+        return invoke(ParsedCommand.parse(command));
+    }
+
+    @Override
+    public String invoke(ParsedCommand command) {
+        var cmd = findCommand(command.getName());
         if(cmd == null)
-            throw new CommandParseException("'" + commandName + "' is not a valid command!", command, 0);
-        
-        var params = Arrays.copyOfRange(splits, 1, splits.length);
-        var context = new CommandContext(CommandHelper.filterOptionals(params), CommandHelper.getOptionals(params));
-        return cmd.invoke(context);
+            throw new CommandParseException("'" + command.getName() + "' is not a valid command!", command.getLine(), 0);
+        return cmd.invoke(command.createContext(cmd.getFlagSchema()));
+    }
+
+    @Override
+    public CompletableFuture<String> invokeAsync(ParsedCommand command) {
+        var cmd = findCommand(command.getName());
+        if(cmd == null)
+            return CompletableFuture.failedFuture(new CommandParseException("'" + command.getName() + "' is not a valid command!", command.getLine(), 0));
+        try {
+            return cmd.invokeAsync(command.createContext(cmd.getFlagSchema()));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
     }
 
     @Override
     public Collection<String> getCommands() {
-        return commands.keySet();
+        return registry.get().names().names();
+    }
+
+    @Override
+    public boolean isRouted(CharSequence name) {
+        return registry.get().index().get(name) != null;
+    }
+
+    /**
+     * A snapshot of the registered commands
+     * @param names the commands by the name they are registered with
+     * @param index the commands by their names and their aliases
+     */
+    private record Registry(NameTrie<ICommand> names, NameTrie<ICommand> index) {
+        private static final Registry EMPTY = new Registry(NameTrie.empty(), NameTrie.empty());
+
+        /**
+         * Creates the snapshot which also contains the command, of which the aliases already in use are skipped
+         * @param name the name of the command
+         * @param command the command to add
+         * @return the new snapshot, or null if the name is already in use
+         */
+        private Registry with(String name, ICommand command) {
+            if(index.contains(name))
+                return null;
+
+            var newIndex = index.with(name, command);
+            for (var alias : command.getAliases())
+                newIndex = newIndex.with(alias, command);
+            return new Registry(names.with(name, command), newIndex);
+        }
     }
 }
@@ -1,44 +1,192 @@
 package jcow.handler;
 
-import java.lang.reflect.AccessibleObject;
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
+import jcow.command.FlagSchema;
 import jcow.command.ICommand;
 import jcow.command.IContext;
-import jcow.command.annotations.Controller;
-import jcow.helpers.ReflectionHelper;
-import jcow.utils.ParameterReader;
+import jcow.command.annotations.Command;
+import jcow.helpers.CommandHelper;
+import jcow.helpers.ParameterParseException;
 
 /**
  * A wrapper for a command that will be invoked using reflection.
  * This class is used to wrap command registered as types using annotations and reflection to handle the command as any other command.
+ * <br></br>
+ * When wrapping an instance, the controller methods which are not static are called on the instance or on the
+ * values of the controller fields leading to them, such that stateful command objects can be registered directly.
+ * <br></br>
+ * Controller methods may return a {@link CompletionStage}, of which the result is the result of the command.
+ * Such controllers are waited for by {@link CommandWrapper#invoke(IContext) invoke}, but not by
+ * {@link CommandWrapper#invokeAsync(IContext) invokeAsync}.
  * 
  * @author KOWI2003
  */
 public class CommandWrapper implements ICommand {
+
+    /**
+     * The suffix added to the binary name of a command class to get the name of the dispatcher
+     * generated by the {@link jcow.processor.CommandProcessor CommandProcessor}
+     */
+    public static final String DISPATCHER_SUFFIX = "$$Dispatcher";
     
-    private Class<?> type;
+    private final Class<?> type;
+    private final Object instance;
+    private final DispatchNode dispatchTree;
+    private final FlagSchema flagSchema;
 
     public CommandWrapper(Class<?> type) {
+        this(type, InvocationMode.METHOD_HANDLE);
+    }
+
+    /**
+     * Creates a wrapper of the type which calls the controller methods in the given way,
+     * mainly meant to be able to compare the invocation modes
+     * @param type the type to wrap as a command
+     * @param mode the way the controller methods should be invoked
+     */
+    public CommandWrapper(Class<?> type, InvocationMode mode) {
+        this(type, null, mode);
+    }
+
+    /**
+     * Creates a wrapper of the command object, on which the controller methods are called
+     * @param instance the command object to wrap
+     */
+    public CommandWrapper(Object instance) {
+        this(instance, InvocationMode.METHOD_HANDLE);
+    }
+
+    /**
+     * Creates a wrapper of the command object which calls the controller methods in the given way
+     * @param instance the command object to wrap
+     * @param mode the way the controller methods should be invoked
+     */
+    public CommandWrapper(Object instance, InvocationMode mode) {
+        this(instance.getClass(), instance, mode);
+    }
+
+    private CommandWrapper(Class<?> type, Object instance, InvocationMode mode) {
         this.type = type;
+        this.instance = instance;
+        this.dispatchTree = DispatchNode.compile(type, mode);
+        this.flagSchema = dispatchTree.createFlagSchema();
+    }
+
+    /**
+     * Wraps the type as a command, using the dispatcher generated by the {@link jcow.processor.CommandProcessor CommandProcessor}
+     * when there is one, such that the controllers are called without reflection. 
+     * When no dispatcher has been generated, the type is wrapped in a new {@link CommandWrapper}.
+     * @param type the type to wrap as a command
+     * @return the command of the type
+     */
+    public static ICommand wrap(Class<?> type) {
+        try {
+            var dispatcher = Class.forName(type.getName() + DISPATCHER_SUFFIX, true, type.getClassLoader());
+            if(ICommand.class.isAssignableFrom(dispatcher))
+                return (ICommand) dispatcher.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            // No (usable) dispatcher has been generated, so reflection is used instead
+        }
+        return new CommandWrapper(type);
+    }
+
+    /**
+     * Gets the type which is wrapped as a command
+     * @return the wrapped type
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Gets the command object which is wrapped
+     * @return the wrapped object, or null if only the type is wrapped
+     */
+    public Object getInstance() {
+        return instance;
+    }
+
+    /**
+     * Gets the schema of all of the flags read by the {@link jcow.command.annotations.FromFlag FromFlag}
+     * parameters of the controllers of the command
+     * @return the schema of the flags of the command
+     */
+    @Override
+    public FlagSchema getFlagSchema() {
+        return flagSchema;
+    }
+
+    /**
+     * Gets the aliases defined by the {@link Command} annotation of the wrapped type
+     * @return the aliases of the command
+     */
+    @Override
+    public Collection<String> getAliases() {
+        var command = type.getAnnotation(Command.class);
+        return command == null ? List.of() : List.of(command.alias());
+    }
+
+    /**
+     * Whether the {@link Command} annotation of the wrapped type marks the command as sequential
+     * @return whether the command is sequential
+     */
+    @Override
+    public boolean isSequential() {
+        var command = type.getAnnotation(Command.class);
+        return command != null && command.sequential();
     }
 
     @Override
     public String invoke(IContext context) {
-        int lastPathIndex = ReflectionHelper.getPathLength(type, context.getParameters(), this::hasAnnotation, this::getMemberName) + 1;
-        var method = ReflectionHelper.getMethod(type, context.getParameters(), this::hasAnnotation, this::getMemberName);
-        if (method == null)
+        var result = invokeController(context);
+        if(result instanceof CompletionStage<?> stage)
+            result = CommandHelper.await(stage);
+        return toResult(result);
+    }
+
+    @Override
+    public CompletableFuture<String> invokeAsync(IContext context) {
+        Object result;
+        try {
+            result = invokeController(context);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if(result instanceof CompletionStage<?> stage)
+            return stage.toCompletableFuture().thenApply(CommandWrapper::toResult);
+        return CompletableFuture.completedFuture(toResult(result));
+    }
+
+    private static String toResult(Object result) {
+        return result == null ? "" : result.toString();
+    }
+
+    /**
+     * Resolves the controller of the command and invokes it
+     * @param context the context of the command
+     * @return the result of the controller, which may be a future result
+     */
+    private Object invokeController(IContext context) {
+        var path = context.getParameterViews();
+        var target = dispatchTree.resolve(path, instance);
+        if (target == null)
             return "Command not found";
             
-        var length = context.getParameters().length - lastPathIndex;
-        var parameters = new String[length];
-        System.arraycopy(context.getParameters(), lastPathIndex, parameters, 0, length);
-        context.setParameters(parameters);
+        var length = path.length - target.pathLength();
+        var parameters = new CharSequence[length];
+        System.arraycopy(path, target.pathLength(), parameters, 0, length);
+        context.setParameterViews(parameters);
+
+        var controller = target.overloads().resolve(parameters);
+        if(controller == null)
+            throw new ParameterParseException("Failed to parse command parameters as no overload of [" + target.overloads().getName() + "] accepts the arguments at index %index%!", CommandHelper.toStrings(parameters), 0);
         
-        return invokeMethod(method, context).toString();
+        return invokeMethod(controller, target.receiver(), context);
     }
 
     @Override
@@ -47,46 +195,32 @@ public class CommandWrapper implements ICommand {
         throw new UnsupportedOperationException("Unimplemented method 'nextCompletion'");
     }
 
-    private boolean hasAnnotation(AccessibleObject member) {
-        return member.isAnnotationPresent(Controller.class);
-    }
-
-    private String getMemberName(AccessibleObject member) {
-        var controller = member.getAnnotation(Controller.class);
-        if(controller != null && !controller.value().isEmpty())
-            return controller.value();
-
-        return switch (member) {
-            case Field field -> field.getName();
-            case Method method -> method.getName();
-            default -> member.toString();
-        };
-    }
-
     /**
      * Tries to invoke a method with the specified name and parameters
-     * @param method the method to invoke
-     * @param params the parameters to pass to the method, that will be parsed according to the method's signature
+     * @param controller the controller method to invoke
+     * @param receiver the object to invoke the method on, null for static methods
+     * @param context the context containing the arguments, that will be parsed according to the method's signature
      * @return the result of the method invocation
+     * @throws IllegalStateException if the controller threw a checked exception or can't be accessed
      */
-    private Object invokeMethod(Method method, IContext context) {
-        var types = method.getParameterTypes();
-        var annotations = method.getParameterAnnotations();
-        
-        var parameterReader = new ParameterReader(context);
-        var arguments = new Object[types.length];
-        for (int i = 0; i < types.length; i++) {
-            if(parameterReader.hasNext())
-                arguments[i] = parameterReader.read(types[i], annotations[i]);
-        }
+    private Object invokeMethod(ControllerMethod controller, Object receiver, IContext context) {
+        if(receiver == null && !controller.isStatic())
+            throw new IllegalStateException("The controller " + controller.getMethod() + " is not static, so it can only be called on a wrapped instance");
+        var arguments = controller.bindArguments(context);
 
         // Invokes the method with the parsed arguments
         try {
-            return method.invoke(null, arguments);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            e.printStackTrace();
+            return controller.invoke(receiver, arguments);
+        } catch (InvocationTargetException e) {
+            // Unchecked failures of the controller, including the parse failures of lazy arguments, are passed on as they are
+            if(e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            if(e.getCause() instanceof Error cause)
+                throw cause;
+            throw new IllegalStateException("The controller " + controller.getMethod() + " failed", e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("The controller " + controller.getMethod() + " can not be accessed", e);
         }
-        return null;
     }
 
 }
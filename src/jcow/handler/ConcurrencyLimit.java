@@ -0,0 +1,59 @@
+package jcow.handler;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Limits the amount of commands a handler runs at the same time without blocking a thread while waiting. A command
+ * which can't run yet waits in line for its turn, which is given to it when a running command releases its permit.
+ *
+ * @author KOWI2003
+ */
+final class ConcurrencyLimit {
+
+    private final int limit;
+    // The commands waiting for a permit, in the order they asked for one
+    private final Queue<CompletableFuture<Void>> waiting = new ArrayDeque<>();
+    private int running;
+
+    /**
+     * Creates the limit
+     * @param limit the maximum amount of commands running at the same time, at least 1
+     */
+    ConcurrencyLimit(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Acquires a permit, which is completed right away when the limit isn't reached yet
+     * and else once all of the commands waiting before it have had their turn
+     * @return the future completed once the permit is acquired
+     */
+    CompletableFuture<Void> acquire() {
+        synchronized (this) {
+            if(running < limit) {
+                running++;
+                return CompletableFuture.completedFuture(null);
+            }
+            var permit = new CompletableFuture<Void>();
+            waiting.add(permit);
+            return permit;
+        }
+    }
+
+    /**
+     * Releases a permit, passing it on to the command which has been waiting the longest
+     */
+    void release() {
+        CompletableFuture<Void> next;
+        synchronized (this) {
+            next = waiting.poll();
+            if(next == null)
+                running--;
+        }
+        // Completed outside of the lock, as completing runs the stages waiting for the permit
+        if(next != null)
+            next.complete(null);
+    }
+}
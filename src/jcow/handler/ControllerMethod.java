@@ -0,0 +1,166 @@
+package jcow.handler;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import jcow.command.IContext;
+import jcow.command.annotations.FromFlag;
+import jcow.helpers.ArgumentKind;
+import jcow.helpers.CommandHelper;
+import jcow.helpers.ReflectionHelper;
+import jcow.utils.ParameterReader;
+
+/**
+ * A controller method of a command, together with everything which is prepared once
+ * at registration to call it.
+ * 
+ * @author KOWI2003
+ */
+final class ControllerMethod {
+
+    private final Method method;
+    private final MethodInvoker invoker;
+    private final ArgumentBinder[] binders;
+    private final ArgumentBinder.Source[] sources;
+    private final String[] flagNames;
+
+    // Overload resolution information
+    private final int[] acceptedKinds;
+    private final int[] specificity;
+    private final int checkedParameters;
+    private final int minArity;
+    private final boolean fixedArity;
+
+    ControllerMethod(Method method, InvocationMode mode) {
+        this.method = method;
+        this.invoker = MethodInvoker.bind(method, mode);
+
+        // The binding plan, telling for each parameter where its value comes from and how it is read
+        var parameters = method.getParameters();
+        this.binders = new ArgumentBinder[parameters.length];
+        this.sources = new ArgumentBinder.Source[parameters.length];
+        var positional = new ArrayList<Class<?>>(parameters.length);
+        int minArity = 0;
+        for (int i = 0; i < parameters.length; i++) {
+            binders[i] = ArgumentBinder.of(parameters[i]);
+            sources[i] = ArgumentBinder.getSource(parameters[i]);
+            if(sources[i].isPositional())
+                positional.add(ArgumentBinder.getBoundType(parameters[i]));
+            if(sources[i] == ArgumentBinder.Source.TOKEN)
+                minArity++;
+        }
+        this.minArity = minArity;
+        this.flagNames = Arrays.stream(parameters)
+            .filter(parameter -> parameter.isAnnotationPresent(FromFlag.class))
+            .map(parameter -> CommandHelper.getFlagName(parameter.getAnnotation(FromFlag.class).value()))
+            .toArray(String[]::new);
+
+        this.acceptedKinds = new int[positional.size()];
+        this.specificity = new int[positional.size()];
+        
+        // A type parser may read any amount of arguments and arrays read all of the remaining arguments,
+        // so the positions of the arguments after such a parameter are not known up front
+        int checked = positional.size();
+        for (int i = 0; i < positional.size(); i++) {
+            acceptedKinds[i] = ArgumentKind.getAcceptedKinds(positional.get(i));
+            specificity[i] = ArgumentKind.getSpecificity(acceptedKinds[i]);
+            if(checked == positional.size() && !ReflectionHelper.isPrimitive(positional.get(i)))
+                checked = i;
+        }
+        this.checkedParameters = checked;
+        this.fixedArity = checked == positional.size();
+    }
+
+    /**
+     * Gets the method of the controller
+     * @return the method
+     */
+    Method getMethod() {
+        return method;
+    }
+
+    /**
+     * Whether the method is static, such that it is called without a receiver
+     * @return whether the method is static
+     */
+    boolean isStatic() {
+        return Modifier.isStatic(method.getModifiers());
+    }
+
+    /**
+     * Gets the names of the flags read by the parameters of the method
+     * @return the flag names without dashes
+     */
+    String[] getFlagNames() {
+        return flagNames;
+    }
+
+    /**
+     * Gets the least amount of arguments the method needs
+     * @return the minimal arity
+     */
+    int getMinArity() {
+        return minArity;
+    }
+
+    /**
+     * Whether the method always takes exactly {@link ControllerMethod#getMinArity() getMinArity} arguments
+     * @return whether the arity is fixed
+     */
+    boolean isFixedArity() {
+        return fixedArity;
+    }
+
+    /**
+     * Gets the specificity of the parameters, where a lower value is more specific
+     * @return the specificity of each parameter
+     */
+    int[] getSpecificity() {
+        return specificity;
+    }
+
+    /**
+     * Checks whether the arguments can be parsed as the parameters of the method
+     * @param arguments the arguments to check
+     * @return whether the arguments are accepted
+     */
+    boolean accepts(CharSequence[] arguments) {
+        int count = Math.min(checkedParameters, arguments.length);
+        for (int i = 0; i < count; i++) {
+            if((ArgumentKind.classify(arguments[i]) & acceptedKinds[i]) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads the arguments of the method from the context through the binders of the parameters,
+     * positional parameters for which no arguments are left are null, or empty for arrays and lists
+     * @param context the context containing the arguments
+     * @return the parsed arguments of the method
+     */
+    Object[] bindArguments(IContext context) {
+        var reader = new ParameterReader(context);
+        var arguments = new Object[binders.length];
+        for (int i = 0; i < binders.length; i++) {
+            if(sources[i] != ArgumentBinder.Source.TOKEN || reader.hasNext())
+                arguments[i] = binders[i].bind(context, reader);
+        }
+        return arguments;
+    }
+
+    /**
+     * Invokes the controller method through its bound invoker
+     * @param receiver the object to invoke the method on, ignored when the method is static
+     * @param arguments the parsed arguments of the method
+     * @return the result of the method
+     * @throws IllegalAccessException if the method can not be accessed
+     * @throws InvocationTargetException if the method itself threw an exception
+     */
+    Object invoke(Object receiver, Object[] arguments) throws IllegalAccessException, InvocationTargetException {
+        return invoker.invoke(receiver, arguments);
+    }
+}
@@ -0,0 +1,193 @@
+package jcow.handler;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import jcow.command.FlagSchema;
+
+import jcow.command.annotations.Controller;
+import jcow.helpers.ReflectionHelper;
+import jcow.utils.NameTrie;
+
+/**
+ * A level of the precompiled dispatch tree of a command class.
+ * Each level maps the names of the controller fields to the level of the field type and the names
+ * of the controller methods to the methods, such that resolving the path of a command only takes a
+ * lookup per path element instead of a scan over the members of the classes. The names are kept in a
+ * {@link NameTrie}, so the path elements are looked up as views of the command line without constructing strings.
+ * <br></br>
+ * The fields are read through accessors derived from a {@link VarHandle} once, such that the object
+ * a controller method is called on can be reached without reflection when the command wraps an instance.
+ * <br></br>
+ * The tree is compiled once and is not modified afterwards.
+ *
+ * @author KOWI2003
+ */
+final class DispatchNode {
+
+    private NameTrie<Child> children = NameTrie.empty();
+    private NameTrie<OverloadTable> methods = NameTrie.empty();
+    private OverloadTable defaultMethods;
+
+    private DispatchNode() {}
+
+    /**
+     * Compiles the dispatch tree of the given type
+     * @param type the type to compile the tree for
+     * @param mode the way the controller methods should be invoked
+     * @return the root of the dispatch tree
+     */
+    static DispatchNode compile(Class<?> type, InvocationMode mode) {
+        return compile(type, mode, new HashMap<>());
+    }
+
+    private static DispatchNode compile(Class<?> type, InvocationMode mode, Map<Class<?>, DispatchNode> compiled) {
+        // Types are compiled only once, which also makes sure fields of recursive types don't loop forever
+        var existing = compiled.get(type);
+        if(existing != null)
+            return existing;
+
+        var node = new DispatchNode();
+        compiled.put(type, node);
+
+        var defaults = new ArrayList<ControllerMethod>();
+        for (var entry : ReflectionHelper.getControllerMethods(type).entrySet()) {
+            var overloads = new ArrayList<ControllerMethod>();
+            for (var method : entry.getValue()) {
+                var controller = new ControllerMethod(method, mode);
+                overloads.add(controller);
+                if(method.getAnnotation(Controller.class).isDefault())
+                    defaults.add(controller);
+            }
+            node.methods = node.methods.with(entry.getKey(), new OverloadTable(entry.getKey(), overloads));
+        }
+        if(!defaults.isEmpty())
+            node.defaultMethods = new OverloadTable(ReflectionHelper.getControllerName(defaults.get(0).getMethod()), defaults);
+
+        for (var entry : ReflectionHelper.getControllerFields(type).entrySet())
+            node.children = node.children.with(entry.getKey(), Child.of(entry.getValue()[0], compile(entry.getValue()[0].getType(), mode, compiled)));
+        return node;
+    }
+
+    /**
+     * Creates the schema of all of the flags read by the controllers in the tree
+     * @return the schema of the flags
+     */
+    FlagSchema createFlagSchema() {
+        var names = new LinkedHashSet<String>();
+        collectFlagNames(names, Collections.newSetFromMap(new IdentityHashMap<>()));
+        return FlagSchema.of(names);
+    }
+
+    private void collectFlagNames(Set<String> names, Set<DispatchNode> visited) {
+        if(!visited.add(this))
+            return;
+        for (var name : methods.names()) {
+            for (var overload : methods.get(name).getOverloads())
+                Collections.addAll(names, overload.getFlagNames());
+        }
+        for (var name : children.names())
+            children.get(name).node().collectFlagNames(names, visited);
+    }
+
+    /**
+     * Resolves the overloads the path leads to. When a path element is not a known controller,
+     * or when the path ends, the default controllers of the reached level are used.
+     * @param path the path to the method, where the arguments of the method follow the path
+     * @return the overloads with the amount of path elements that lead to it, or null if no method is found
+     */
+    Target resolve(CharSequence[] path) {
+        return resolve(path, null);
+    }
+
+    /**
+     * Resolves the overloads the path leads to, together with the object the controller is called on
+     * which is reached by reading the fields along the path starting at the given instance
+     * @param path the path to the method, where the arguments of the method follow the path
+     * @param instance the object of the root of the tree, may be null when only static members are used
+     * @return the overloads with the amount of path elements that lead to it, or null if no method is found
+     */
+    Target resolve(CharSequence[] path, Object instance) {
+        var node = this;
+        var receiver = instance;
+        int i = 0;
+        for (; i < path.length; i++) {
+            var name = path[i];
+
+            var overloads = node.methods.get(name);
+            if(overloads != null)
+                return new Target(overloads, i + 1, receiver);
+
+            var child = node.children.get(name);
+            if(child == null)
+                break;
+            node = child.node();
+            receiver = child.get(receiver);
+        }
+        return node.defaultMethods == null ? null : new Target(node.defaultMethods, i, receiver);
+    }
+
+    /**
+     * A controller field leading to the next level of the tree
+     * @param node the level of the type of the field
+     * @param accessor the accessor of the field value taking the holder of the field, or null if the field can't be accessed
+     * @param isStatic whether the field is static, in which case no holder is needed
+     */
+    private record Child(DispatchNode node, MethodHandle accessor, boolean isStatic) {
+
+        /**
+         * Creates the child of the field, of which the accessor is derived from a {@link VarHandle} of the field
+         * @param field the controller field
+         * @param node the level of the type of the field
+         * @return the child of the field
+         */
+        static Child of(Field field, DispatchNode node) {
+            var isStatic = Modifier.isStatic(field.getModifiers());
+            try {
+                var getter = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup())
+                    .unreflectVarHandle(field)
+                    .toMethodHandle(VarHandle.AccessMode.GET);
+                if(isStatic)
+                    getter = MethodHandles.dropArguments(getter, 0, Object.class);
+                return new Child(node, getter.asType(MethodType.methodType(Object.class, Object.class)), isStatic);
+            } catch (IllegalAccessException e) {
+                // Only static controller methods can be reached through the field
+                return new Child(node, null, isStatic);
+            }
+        }
+
+        /**
+         * Reads the value of the field
+         * @param holder the object holding the field, ignored when the field is static
+         * @return the value of the field or null if it can't be read
+         */
+        Object get(Object holder) {
+            if(accessor == null || (holder == null && !isStatic))
+                return null;
+            try {
+                return (Object) accessor.invokeExact(holder);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Failed to read a controller field", e);
+            }
+        }
+    }
+
+    /**
+     * The result of resolving a path in the dispatch tree
+     * @param overloads the overloads of the controller the path leads to
+     * @param pathLength the amount of path elements leading to the method
+     * @param receiver the object to call the controller on, null if the path can't reach an object
+     */
+    record Target(OverloadTable overloads, int pathLength, Object receiver) {}
+}
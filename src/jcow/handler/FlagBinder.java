@@ -0,0 +1,135 @@
+package jcow.handler;
+
+import java.lang.reflect.Type;
+
+import jcow.command.FlagSchema;
+import jcow.command.IContext;
+import jcow.helpers.NumberParser;
+import jcow.helpers.ReflectionHelper;
+import jcow.utils.ParameterReader;
+
+/**
+ * Binds a parameter to the value of a flag. When the context stores its flags by a {@link FlagSchema}
+ * the flag is read from its slot, otherwise it is looked up in the map of the flags. How the value of the flag
+ * is parsed is chosen once when the command is wrapped.
+ *
+ * @author KOWI2003
+ */
+final class FlagBinder implements ArgumentBinder {
+
+    private final String name;
+    private final Converter converter;
+    // The flags of a map keep their dashes, so both ways of giving the flag are looked up
+    private final String shortKey;
+    private final String longKey;
+    private final Object defaultValue;
+    private final Object switchValue;
+
+    // The ordinal of the flag in the last schema it was bound with, which is the same for every invocation of a command
+    private volatile Slot slot;
+
+    /**
+     * Creates the binder of the flag
+     * @param name the name of the flag without dashes
+     * @param type the type of the parameter
+     * @param genericType the generic type of the parameter
+     * @throws IllegalArgumentException if no type parser has been registered for the type
+     */
+    FlagBinder(String name, Class<?> type, Type genericType) {
+        this.name = name;
+        this.converter = converter(type, genericType);
+        this.shortKey = "-" + name;
+        this.longKey = "--" + name;
+        this.defaultValue = ReflectionHelper.getDefaultValue(type);
+        this.switchValue = type == boolean.class || type == Boolean.class ? Boolean.TRUE : null;
+    }
+
+    @Override
+    public Object bind(IContext context, ParameterReader reader) {
+        var values = context.getFlagValues();
+        if(values != null) {
+            var slot = this.slot;
+            if(slot == null || slot.schema() != values.getSchema())
+                this.slot = slot = new Slot(values.getSchema(), values.getSchema().indexOf(name));
+
+            int ordinal = slot.ordinal();
+            if(ordinal >= 0) {
+                if(!values.isSet(ordinal))
+                    return defaultValue;
+                return values.isSwitch(ordinal) ? switchValue : converter.convert(context, values.getValue(ordinal));
+            }
+        }
+
+        var flags = context.getFlags();
+        if(flags.containsKey(shortKey))
+            return readOptional(context, flags.get(shortKey));
+        if(flags.containsKey(longKey))
+            return readOptional(context, flags.get(longKey));
+        return defaultValue;
+    }
+
+    private Object readOptional(IContext context, String value) {
+        return value == null ? switchValue : converter.convert(context, value);
+    }
+
+    /**
+     * Chooses how the value of a flag is converted, where primitives and strings are parsed straight from the value
+     * and any other type is parsed by its {@link ArgumentBinder binder} from a reader of just the value
+     * @param type the type of the parameter
+     * @param genericType the generic type of the parameter
+     * @return the converter of the value
+     * @throws IllegalArgumentException if no type parser has been registered for the type
+     */
+    private static Converter converter(Class<?> type, Type genericType) {
+        var primitive = primitiveParser(type);
+        if(primitive != null) {
+            return (context, value) -> {
+                try {
+                    return primitive.parse(value);
+                } catch (IllegalArgumentException e) {
+                    // Reported the same way as a value which is read by a reader
+                    var exception = new ParameterReader(context, new CharSequence[] { value }).invalidParameter(e.getMessage());
+                    exception.initCause(e);
+                    throw exception;
+                }
+            };
+        }
+
+        var binder = ArgumentBinder.of(type, genericType);
+        return (context, value) -> binder.bind(context, new ParameterReader(context, new CharSequence[] { value }));
+    }
+
+    private static PrimitiveParser primitiveParser(Class<?> type) {
+        if(type == String.class)
+            return CharSequence::toString;
+        if(type == int.class || type == Integer.class)
+            return NumberParser::parseInt;
+        if(type == long.class || type == Long.class)
+            return NumberParser::parseLong;
+        if(type == double.class || type == Double.class)
+            return NumberParser::parseDouble;
+        if(type == boolean.class || type == Boolean.class)
+            return ReflectionHelper::parseBoolean;
+        if(type == float.class || type == Float.class)
+            return NumberParser::parseFloat;
+        if(type == char.class || type == Character.class)
+            return ReflectionHelper::parseCharacter;
+        if(type == short.class || type == Short.class)
+            return NumberParser::parseShort;
+        if(type == byte.class || type == Byte.class)
+            return NumberParser::parseByte;
+        return null;
+    }
+
+    @FunctionalInterface
+    private interface Converter {
+        Object convert(IContext context, CharSequence value);
+    }
+
+    @FunctionalInterface
+    private interface PrimitiveParser {
+        Object parse(CharSequence value);
+    }
+
+    private record Slot(FlagSchema schema, int ordinal) {}
+}
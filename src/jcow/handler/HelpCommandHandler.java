@@ -4,9 +4,16 @@ import java.util.Collection;
 import java.util.List;
 
 import jcow.command.ICommand;
+import jcow.command.ParsedCommand;
+import jcow.helpers.CommandParseException;
 
 public class HelpCommandHandler implements ICommandHandler {
 
+    /**
+     * The name of the help command
+     */
+    public static final String NAME = "help";
+
     private InterfaceHandler ui;
 
     public HelpCommandHandler(InterfaceHandler ui) {
@@ -15,7 +22,18 @@ public class HelpCommandHandler implements ICommandHandler {
 
     @Override
     public boolean canHandle(String command) {
-        return command.startsWith("help");
+        if(command == null || command.isBlank())
+            return false;
+        try {
+            return canHandle(ParsedCommand.parse(command));
+        } catch (CommandParseException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean canHandle(ParsedCommand command) {
+        return NAME.equals(command.getName());
     }
 
     @Override
@@ -45,4 +63,9 @@ public class HelpCommandHandler implements ICommandHandler {
         return List.of();
     }
 
+    @Override
+    public boolean isRouted(CharSequence name) {
+        return NAME.contentEquals(name);
+    }
+
 }
@@ -1,8 +1,10 @@
 package jcow.handler;
 
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 
 import jcow.command.ICommand;
+import jcow.command.ParsedCommand;
 import jcow.helpers.CommandParseException;
 import jcow.helpers.ParameterParseException;
 
@@ -15,6 +17,15 @@ public interface ICommandHandler {
      */
     boolean canHandle(String command);
 
+    /**
+     * Whether this handler can handle the already parsed command
+     * @param command the parsed command to check
+     * @return whether the command can be handled
+     */
+    default boolean canHandle(ParsedCommand command) {
+        return canHandle(command.getLine());
+    }
+
     /**
      * Registers a new command to the command handler.
      * But it can only register a command if there is no command already registered 
@@ -27,7 +38,6 @@ public interface ICommandHandler {
 
     /**
      * Gets a command by its registered name
-     * Note this does not handle aliases
      * @param name the name of the command
      * @return the command corresponding with the name
      */
@@ -41,6 +51,30 @@ public interface ICommandHandler {
      * @throws ParameterParseException if parsing of the parameters failed, usually the case when a group has an opening character but not a closing character
      */
     String invoke(String command);
+
+    /**
+     * Invokes an already parsed command, such that the command line does not have to be split again
+     * @param command the parsed command
+     * @return the result of the command invokation
+     * @throws CommandParseException if the command fails to be parsed, occurs when no command was found
+     */
+    default String invoke(ParsedCommand command) {
+        return invoke(command.getLine());
+    }
+
+    /**
+     * Invokes an already parsed command without waiting for the result, by default the command
+     * is invoked on the calling thread
+     * @param command the parsed command
+     * @return the future result of the command, completed exceptionally when the command fails
+     */
+    default CompletableFuture<String> invokeAsync(ParsedCommand command) {
+        try {
+            return CompletableFuture.completedFuture(invoke(command));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
     
     /**
      * Gets A list of the commands which can be handled..
@@ -48,4 +82,24 @@ public interface ICommandHandler {
      */
     Collection<String> getCommands();
 
+    /**
+     * Checks whether an {@link InterfaceHandler} routes commands with the name to this handler directly, which should
+     * be a single lookup as it is asked for every command. Commands of which the name is not routed to any handler
+     * are offered to the handlers through {@link ICommandHandler#canHandle(ParsedCommand) canHandle}
+     * @param name the name of the command
+     * @return whether the name, or an alias, of one of the commands of this handler is the given name
+     */
+    default boolean isRouted(CharSequence name) {
+        return getCommands().contains(name.toString());
+    }
+
+    /**
+     * Whether the command with the name has to run on its own when commands are executed in bulk
+     * @param name the name of the command
+     * @return whether the command is sequential, false if the handler has no such command
+     */
+    default boolean isSequential(CharSequence name) {
+        return false;
+    }
+
 }
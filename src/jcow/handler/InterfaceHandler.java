@@ -2,27 +2,58 @@ package jcow.handler;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import jcow.command.ParsedCommand;
+import jcow.helpers.CommandParseException;
+import jcow.utils.CharSlice;
 
 /**
  * An basis implementation of an interface which should be extended to add the actual unique
  * interaction.
+ * <br></br>
+ * Commands are routed to the attached handlers which {@link ICommandHandler#isRouted(CharSequence) route} the name of
+ * the command, which every handler looks up in its own index of names. Commands of which the name is not routed to any
+ * handler are offered to every handler. Handlers are tried in the order they were attached.
+ * <br></br>
+ * Commands run on the thread of the interface, unless the interface is set to {@link InterfaceHandler#executeConcurrently(ResultOrder)
+ * execute concurrently}. Then every command is handed to an executor and the output is delivered in the chosen {@link ResultOrder},
+ * where the amount of commands running at the same time can be limited per handler.
  * 
  * @author KOWI2003
  */
 public abstract class InterfaceHandler {
     
     private final Thread thread;
+    // Copied on write, such that the handler thread can route commands while handlers are attached
     final Set<ICommandHandler> handlers;
 
+    // Concurrent execution, null when commands run on the thread of the interface
+    private volatile Executor executor;
+    private volatile ExecutorService ownedExecutor;
+    private volatile OutputSequencer sequencer;
+    private final Map<ICommandHandler, ConcurrencyLimit> limits = new ConcurrentHashMap<>();
+
     // Settings
     // Whether to allow multiple handlers to handle the same command
     protected boolean multiHandleCommands = false;
     protected boolean printStacktrace = false;
 
     public InterfaceHandler() {
-        this.handlers = new HashSet<>();
+        this.handlers = new CopyOnWriteArraySet<>();
         this.thread = new Thread(this::handle);
     }
 
@@ -40,6 +71,58 @@ public abstract class InterfaceHandler {
      */
     public void stop() {
         thread.interrupt();
+        var owned = ownedExecutor;
+        if(owned != null)
+            owned.shutdown();
+    }
+
+    /**
+     * Executes every command on its own virtual thread, delivering the output in the given order
+     * @param order the order in which the output of the commands is delivered
+     */
+    public void executeConcurrently(ResultOrder order) {
+        var virtual = Executors.newVirtualThreadPerTaskExecutor();
+        setExecutor(virtual, order);
+        ownedExecutor = virtual;
+    }
+
+    /**
+     * Executes the commands on the given executor, delivering the output in the given order
+     * @param executor the executor to run the commands on [not null]
+     * @param order the order in which the output of the commands is delivered
+     */
+    public void executeConcurrently(Executor executor, ResultOrder order) {
+        if(executor == null)
+            throw new IllegalArgumentException("The executor should not be null!");
+        setExecutor(executor, order);
+    }
+
+    /**
+     * Executes the commands on the thread of the interface again, one after another
+     */
+    public void executeInline() {
+        setExecutor(null, null);
+    }
+
+    private void setExecutor(Executor executor, ResultOrder order) {
+        var owned = ownedExecutor;
+        ownedExecutor = null;
+        if(owned != null)
+            owned.shutdown();
+        this.sequencer = executor == null ? null : new OutputSequencer(order, this::deliver);
+        this.executor = executor;
+    }
+
+    /**
+     * Limits the amount of commands the handler runs at the same time, when executing concurrently
+     * @param handler the handler to limit
+     * @param limit the maximum amount of commands running at the same time, or 0 or less to remove the limit
+     */
+    public void setConcurrencyLimit(ICommandHandler handler, int limit) {
+        if(limit <= 0)
+            limits.remove(handler);
+        else
+            limits.put(handler, new ConcurrencyLimit(limit));
     }
 
     /**
@@ -83,9 +166,7 @@ public abstract class InterfaceHandler {
      * @return whether the handler has been dettached, note: it will return false if the handler wasn't attached
      */
     public boolean dettachHandler(ICommandHandler handler) {
-        if(handler == null)
-            return false;
-        return handlers.remove(handler);
+        return handler != null && handlers.remove(handler);
     }
     
     /**
@@ -94,11 +175,45 @@ public abstract class InterfaceHandler {
      * @return whether the command can be handled
      */
     public boolean canHandle(String command) {
+        if(command == null || command.isBlank())
+            return false;
+        try {
+            return canHandle(ParsedCommand.parse(command));
+        } catch (CommandParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether the attached handlers can handle a given parsed command
+     * @param command the command to check
+     * @return whether the command can be handled
+     */
+    public boolean canHandle(ParsedCommand command) {
+        return !route(command).isEmpty();
+    }
+
+    /**
+     * Gets the handlers which can handle the command in the order they were attached, being the handlers routing
+     * the name of the command and else the handlers which can handle it when asked
+     * @param command the command to route
+     * @return the handlers of the command
+     */
+    List<ICommandHandler> route(ParsedCommand command) {
+        var name = command.getName();
+        var result = new ArrayList<ICommandHandler>(1);
+        for (var handler : handlers) {
+            if(handler.isRouted(name))
+                result.add(handler);
+        }
+        if(!result.isEmpty())
+            return result;
+
         for (var handler : handlers) {
             if(handler.canHandle(command))
-                return true;
+                result.add(handler);
         }
-        return false;
+        return result;
     }
 
     /**
@@ -113,35 +228,190 @@ public abstract class InterfaceHandler {
      */
     protected abstract void printError(String error);
 
+    /**
+     * Prints the result of a command to the output, used for the commands handled through
+     * {@link InterfaceHandler#dispatchCommand(String) dispatchCommand}
+     * @param result the result to print
+     */
+    protected void printResult(String result) {}
+
+    /**
+     * Handles the command and prints its output. When executing concurrently the command is handed to the executor
+     * and this returns right away, else the command is handled on the calling thread
+     * @param command the command to handle
+     */
+    protected void dispatchCommand(String command) {
+        var executor = this.executor;
+        var sequencer = this.sequencer;
+        if(executor == null || sequencer == null) {
+            for (var result : handleCommand(command))
+                printResult(result);
+            return;
+        }
+
+        // The ticket is taken on the calling thread, such that the submission order is the order of the input
+        var ticket = sequencer.take();
+        var output = Collections.synchronizedList(new ArrayList<OutputSequencer.Output>());
+        Consumer<String> errors = error -> output.add(new OutputSequencer.Output(error, true));
+        try {
+            // The executor thread is released once the command returned its future result
+            CompletableFuture.supplyAsync(() -> handleCommandAsync(command, errors), executor)
+                .thenCompose(results -> results)
+                .whenComplete((results, ex) -> {
+                    // The ticket is always completed, as the output of all of the later commands waits for it
+                    try {
+                        if(ex != null)
+                            reportError(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex, errors);
+                        for (var result : results == null ? new String[0] : results)
+                            output.add(new OutputSequencer.Output(result, false));
+                    } finally {
+                        sequencer.complete(ticket, List.copyOf(output));
+                    }
+                });
+        } catch (RejectedExecutionException ex) {
+            sequencer.complete(ticket, List.of(new OutputSequencer.Output("The command could not be executed.", true)));
+        }
+    }
+
+    void deliver(OutputSequencer.Output output) {
+        if(output.error())
+            printError(output.text());
+        else
+            printResult(output.text());
+    }
+
     /**
      * Handles the command given if it can, and returns the results of the handler(s)
      * @param command the command to handle
      * @return the result as gotte from the handler(s)
      */
     protected String[] handleCommand(String command) {
+        return handleCommand(command, this::printError);
+    }
+
+    String[] handleCommand(String command, Consumer<String> errors) {
+        return handleCommandAsync(command, errors).join();
+    }
+
+    /**
+     * Whether the command of the line has to run on its own, looking only at the name of the command
+     * such that the line doesn't have to be parsed
+     * @param line the command line
+     * @return whether the command is sequential according to any of the handlers
+     */
+    boolean isSequential(String line) {
+        int start = 0;
+        while(start < line.length() && Character.isWhitespace(line.charAt(start)))
+            start++;
+        int end = start;
+        while(end < line.length() && !Character.isWhitespace(line.charAt(end)))
+            end++;
+        if(start == end)
+            return false;
+
+        var name = CharSlice.of(line, start, end);
+        for (var handler : handlers) {
+            if(handler.isSequential(name))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Handles the command given if it can without waiting for the handler(s), of which the errors are printed to the output
+     * @param command the command to handle
+     * @return the future result as gotten from the handler(s), which always completes normally
+     */
+    public CompletableFuture<String[]> executeAsync(String command) {
+        return handleCommandAsync(command, this::printError);
+    }
+
+    private CompletableFuture<String[]> handleCommandAsync(String command, Consumer<String> errors) {
         if(handlers == null)
-            return new String[0];
-        if(!canHandle(command)) {
-            printError("Unknown command.");
-            return new String[0];
+            return CompletableFuture.completedFuture(new String[0]);
+        if(command == null || command.isBlank()) {
+            errors.accept("Unknown command.");
+            return CompletableFuture.completedFuture(new String[0]);
+        }
+
+        // The command is only parsed once and then shared by all of the handlers
+        ParsedCommand parsed;
+        try {
+            parsed = ParsedCommand.parse(command);
+        }catch(CommandParseException ex) {
+            reportError(ex, errors);
+            return CompletableFuture.completedFuture(new String[0]);
         }
         
-        var results = new ArrayList<String>();
-        for (var handler : handlers) {
-            if(handler.canHandle(command)) {
-                try {
-                    results.add(handler.invoke(command));
-                }catch(Exception ex) {
-                    printError(ex.getMessage());
-                    if(printStacktrace)
-                        ex.printStackTrace();
+        var routed = route(parsed);
+        if(routed.isEmpty()) {
+            errors.accept("Unknown command.");
+            return CompletableFuture.completedFuture(new String[0]);
+        }
+
+        // The handlers are called one after another, the next starting once the result of the previous is there
+        var results = Collections.synchronizedList(new ArrayList<String>());
+        var chain = CompletableFuture.<Boolean>completedFuture(true);
+        for (var handler : multiHandleCommands ? routed : routed.subList(0, 1)) {
+            chain = chain.thenCompose(proceed -> proceed ? invokeHandler(handler, parsed, results, errors) : CompletableFuture.completedFuture(false));
+        }
+        return chain.thenApply(done -> results.toArray(String[]::new));
+    }
+
+    /**
+     * Invokes the handler within its concurrency limit when executing concurrently, adding its result or reporting its failure
+     * @return the future telling whether the next handler may be invoked
+     */
+    private CompletableFuture<Boolean> invokeHandler(ICommandHandler handler, ParsedCommand parsed, List<String> results, Consumer<String> errors) {
+        var limit = limits.get(handler);
+        var executor = this.executor;
+        if(limit == null || executor == null)
+            return invokeHandler(handler, parsed, results, errors, null);
+
+        // No thread waits for the permit, the handler is invoked on the executor once the permit is handed over
+        return limit.acquire()
+            .thenComposeAsync(ignored -> invokeHandler(handler, parsed, results, errors, limit), executor)
+            .exceptionally(ex -> {
+                var cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                // The invocation itself reports its failures, so the handler hasn't been invoked when its execution is rejected
+                if(cause instanceof RejectedExecutionException) {
+                    limit.release();
+                    errors.accept("The command could not be executed.");
+                } else {
+                    reportError(cause, errors);
                 }
+                return false;
+            });
+    }
 
-                if(!multiHandleCommands)
-                    break;
-            }
+    /**
+     * Invokes the handler of which the permit has been acquired, releasing the permit once the result is there
+     * @param limit the limit of the handler to release, or null if the handler is not limited
+     * @return the future telling whether the next handler may be invoked
+     */
+    private CompletableFuture<Boolean> invokeHandler(ICommandHandler handler, ParsedCommand parsed, List<String> results, Consumer<String> errors, ConcurrencyLimit limit) {
+        CompletableFuture<String> result;
+        try {
+            result = handler.invokeAsync(parsed);
+        }catch(RuntimeException ex) {
+            result = CompletableFuture.failedFuture(ex);
         }
-        return results.toArray(String[]::new);
+        return result.handle((value, ex) -> {
+            if(limit != null)
+                limit.release();
+            if(ex == null)
+                results.add(value);
+            else
+                reportError(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex, errors);
+            return true;
+        });
+    }
+
+    private void reportError(Throwable ex, Consumer<String> errors) {
+        // Exceptions without a message are still reported
+        errors.accept(Objects.requireNonNullElse(ex.getMessage(), ex.toString()));
+        if(printStacktrace)
+            ex.printStackTrace();
     }
 
     public final Collection<String> getCommands() {
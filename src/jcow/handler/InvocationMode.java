@@ -0,0 +1,22 @@
+package jcow.handler;
+
+/**
+ * The ways in which a {@link CommandWrapper} can call the controller methods of a command
+ * 
+ * @author KOWI2003
+ */
+public enum InvocationMode {
+
+    /**
+     * Calls the controller methods through {@link java.lang.reflect.Method#invoke(Object, Object...) Method.invoke},
+     * which checks the access and the arguments on every call
+     */
+    REFLECTION,
+
+    /**
+     * Binds the controller methods to a {@link java.lang.invoke.MethodHandle MethodHandle} once,
+     * after which calls are direct and can be inlined by the JIT
+     */
+    METHOD_HANDLE
+
+}
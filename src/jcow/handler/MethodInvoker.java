@@ -0,0 +1,97 @@
+package jcow.handler;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Calls a controller method which has been bound once according to an {@link InvocationMode}.
+ * Either way exceptions thrown by the method itself are wrapped in an {@link InvocationTargetException}
+ * and arguments which don't fit the method are reported by an {@link IllegalArgumentException},
+ * such that both modes can be handled the same. The receiver is ignored for static methods.
+ * 
+ * @author KOWI2003
+ */
+@FunctionalInterface
+interface MethodInvoker {
+
+    MethodHandle TARGET_FAILURE = findTargetFailure();
+    
+    /**
+     * Invokes the bound method
+     * @param receiver the object to invoke the method on, ignored when the method is static
+     * @param arguments the arguments to invoke the method with
+     * @return the result of the method, or null if the method has no result
+     * @throws IllegalAccessException if the method can not be accessed
+     * @throws InvocationTargetException if the method itself threw an exception
+     * @throws IllegalArgumentException if the arguments don't match the parameters of the method
+     * @throws NullPointerException if the receiver is null while the method is not static
+     */
+    Object invoke(Object receiver, Object[] arguments) throws IllegalAccessException, InvocationTargetException;
+
+    /**
+     * Binds the method according to the invocation mode
+     * @param method the method to bind
+     * @param mode the mode of invocation
+     * @return the invoker of the method
+     */
+    static MethodInvoker bind(Method method, InvocationMode mode) {
+        method.trySetAccessible();
+        return switch (mode) {
+            case REFLECTION -> method::invoke;
+            case METHOD_HANDLE -> bindHandle(method);
+        };
+    }
+
+    private static MethodInvoker bindHandle(Method method) {
+        MethodHandle unreflected;
+        try {
+            unreflected = MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            // Falls back to reflection which will report the access failure on invocation
+            return method::invoke;
+        }
+
+        // Varargs are already bound as an array so the handle must not collect them again
+        var target = unreflected.asFixedArity();
+        // Only the failures of the method itself are wrapped, failures to convert the arguments are not
+        var failure = TARGET_FAILURE.asType(MethodType.methodType(target.type().returnType(), Throwable.class));
+        target = MethodHandles.catchException(target, Throwable.class,
+            MethodHandles.dropArguments(failure, 1, target.type().parameterList()));
+
+        // Spreads the argument array over the parameters and makes the result generic (void becomes null)
+        var spread = target.asSpreader(Object[].class, method.getParameterCount());
+        // Static methods get a receiver parameter which is dropped, such that both are called the same
+        var isStatic = Modifier.isStatic(method.getModifiers());
+        if(isStatic)
+            spread = MethodHandles.dropArguments(spread, 0, Object.class);
+        var handle = spread.asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+        return (receiver, arguments) -> {
+            if(receiver == null && !isStatic)
+                throw new NullPointerException("Cannot invoke " + method + " without a receiver");
+            try {
+                return (Object) handle.invokeExact(receiver, arguments);
+            } catch (InvocationTargetException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                // The arguments could not be converted to the parameters, as reflection would report it
+                throw new IllegalArgumentException("The arguments don't match the parameters of " + method, e);
+            }
+        };
+    }
+
+    private static Object failTarget(Throwable cause) throws InvocationTargetException {
+        throw new InvocationTargetException(cause);
+    }
+
+    private static MethodHandle findTargetFailure() {
+        try {
+            return MethodHandles.lookup().findStatic(MethodInvoker.class, "failTarget", MethodType.methodType(Object.class, Throwable.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
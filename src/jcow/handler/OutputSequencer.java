@@ -0,0 +1,113 @@
+package jcow.handler;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.function.Consumer;
+
+/**
+ * Delivers the output of concurrently executed commands in a {@link ResultOrder}. Every command takes a ticket
+ * when it is submitted and completes the ticket with its output, which is delivered by a single thread at a time.
+ * The output is delivered without holding the lock of the sequencer, such that a slow delivery doesn't block
+ * the commands taking and completing their tickets. The thread completing a ticket while nothing is being delivered
+ * becomes the deliverer, and keeps delivering until no output is ready anymore.
+ *
+ * @author KOWI2003
+ */
+final class OutputSequencer {
+
+    private final ResultOrder order;
+    private final Consumer<Output> delivery;
+
+    // The output of the completed tickets waiting for the tickets before them
+    private final Map<Long, List<Output>> pending = new HashMap<>();
+    // The output which is ready to be delivered, in the order it is delivered
+    private final Queue<List<Output>> ready = new ArrayDeque<>();
+    private long nextTicket;
+    // The next ticket of which the output is ready, in the submission order
+    private long nextReady;
+    private long nextDelivery;
+    private boolean delivering;
+
+    OutputSequencer(ResultOrder order, Consumer<Output> delivery) {
+        this.order = order;
+        this.delivery = delivery;
+    }
+
+    /**
+     * Takes the ticket of the next submitted command
+     * @return the ticket
+     */
+    synchronized long take() {
+        return nextTicket++;
+    }
+
+    /**
+     * Completes the ticket, delivering the output now or once all of the tickets before it are completed
+     * @param ticket the ticket of the command
+     * @param output the output of the command
+     */
+    void complete(long ticket, List<Output> output) {
+        List<Output> next;
+        synchronized (this) {
+            if(order == ResultOrder.COMPLETION) {
+                ready.add(output);
+            } else {
+                pending.put(ticket, output);
+                while((next = pending.remove(nextReady)) != null) {
+                    ready.add(next);
+                    nextReady++;
+                }
+            }
+            // The thread delivering right now also delivers this output, after the output before it
+            if(delivering)
+                return;
+            next = ready.poll();
+            if(next == null)
+                return;
+            delivering = true;
+        }
+
+        try {
+            while(next != null) {
+                next.forEach(delivery);
+                synchronized (this) {
+                    nextDelivery++;
+                    notifyAll();
+                    next = ready.poll();
+                    if(next == null)
+                        delivering = false;
+                }
+            }
+        } finally {
+            if(next != null) {
+                // The delivery failed, so the next completed ticket delivers the remaining output
+                synchronized (this) {
+                    nextDelivery++;
+                    delivering = false;
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits until at most the given amount of tickets is taken but not yet delivered, which bounds
+     * the output held back for the tickets before it
+     * @param maxPending the maximum amount of undelivered tickets, 0 to wait for all of them
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    synchronized void awaitPending(int maxPending) throws InterruptedException {
+        while(nextTicket - nextDelivery > maxPending)
+            wait();
+    }
+
+    /**
+     * A line of output of a command
+     * @param text the text to output
+     * @param error whether the text is an error
+     */
+    record Output(String text, boolean error) {}
+}
@@ -0,0 +1,90 @@
+package jcow.handler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The overloads of a controller name, indexed by the amount of arguments they take.
+ * When multiple overloads take the same amount of arguments, the first overload of which all
+ * parameters accept the kind of their argument is chosen, where overloads with more specific
+ * parameter types are tried first (a whole number before a decimal number before any text).
+ *
+ * @author KOWI2003
+ */
+final class OverloadTable {
+
+    private static final ControllerMethod[] NONE = new ControllerMethod[0];
+
+    private final String name;
+    private final List<ControllerMethod> overloads;
+    private final ControllerMethod[][] byArity;
+    private final ControllerMethod[] variadic;
+
+    OverloadTable(String name, List<ControllerMethod> overloads) {
+        this.name = name;
+        this.overloads = List.copyOf(overloads);
+
+        var sorted = new ArrayList<>(overloads);
+        sorted.sort(Comparator.comparing(ControllerMethod::getSpecificity, Arrays::compare)
+            .thenComparing(controller -> controller.getMethod().toString()));
+
+        int maxArity = 0;
+        for (var overload : sorted) {
+            if(overload.isFixedArity())
+                maxArity = Math.max(maxArity, overload.getMinArity());
+        }
+
+        var buckets = new ArrayList<List<ControllerMethod>>();
+        for (int i = 0; i <= maxArity; i++)
+            buckets.add(new ArrayList<>());
+        var variadic = new ArrayList<ControllerMethod>();
+        for (var overload : sorted) {
+            if(overload.isFixedArity())
+                buckets.get(overload.getMinArity()).add(overload);
+            else
+                variadic.add(overload);
+        }
+
+        this.byArity = buckets.stream().map(bucket -> bucket.toArray(ControllerMethod[]::new)).toArray(ControllerMethod[][]::new);
+        this.variadic = variadic.toArray(ControllerMethod[]::new);
+    }
+
+    /**
+     * Gets the name of the controller the overloads belong to
+     * @return the controller name
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Gets all of the overloads of the controller
+     * @return the overloads
+     */
+    List<ControllerMethod> getOverloads() {
+        return overloads;
+    }
+
+    /**
+     * Resolves the overload which should be called with the arguments
+     * @param arguments the arguments for the controller
+     * @return the overload to call or null if no overload accepts the arguments
+     */
+    ControllerMethod resolve(CharSequence[] arguments) {
+        var bucket = arguments.length < byArity.length ? byArity[arguments.length] : NONE;
+        if(bucket.length == 1 && variadic.length == 0)
+            return bucket[0];
+
+        for (var overload : bucket) {
+            if(overload.accepts(arguments))
+                return overload;
+        }
+        for (var overload : variadic) {
+            if(overload.getMinArity() <= arguments.length && overload.accepts(arguments))
+                return overload;
+        }
+        return null;
+    }
+}
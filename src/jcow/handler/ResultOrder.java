@@ -0,0 +1,21 @@
+package jcow.handler;
+
+/**
+ * The orders in which an {@link InterfaceHandler} delivers the output of commands which are executed concurrently
+ * 
+ * @author KOWI2003
+ */
+public enum ResultOrder {
+
+    /**
+     * Delivers the output of the commands in the order the commands were entered,
+     * holding back the output of a command until the commands before it are done
+     */
+    SUBMISSION,
+
+    /**
+     * Delivers the output of a command as soon as the command is done
+     */
+    COMPLETION
+
+}
@@ -0,0 +1,100 @@
+package jcow.handler.types;
+
+import java.util.Arrays;
+
+import jcow.command.IContext;
+import jcow.utils.ParameterReader;
+
+/**
+ * The built-in parser of enums, looking up a constant by its name ignoring case.
+ * The lookup table is built once per enum class, after which a lookup hashes the argument
+ * directly without constructing a string for it.
+ *
+ * @author KOWI2003
+ */
+public final class EnumParser<E extends Enum<E>> implements TypeParser<E> {
+
+    private static final ClassValue<EnumParser<?>> PARSERS = new ClassValue<>() {
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        protected EnumParser<?> computeValue(Class<?> type) {
+            return new EnumParser(type);
+        }
+    };
+
+    private final Class<E> type;
+    // Open addressing table of the constants by the case insensitive hash of their name
+    private final E[] table;
+    private final int mask;
+
+    private EnumParser(Class<E> type) {
+        this.type = type;
+        var constants = type.getEnumConstants();
+
+        int size = Integer.highestOneBit(Math.max(constants.length, 1) * 2 - 1) << 1;
+        @SuppressWarnings("unchecked")
+        var table = (E[]) java.lang.reflect.Array.newInstance(type, size);
+        this.table = table;
+        this.mask = size - 1;
+        for (var constant : constants) {
+            // A constant differing only in case from an earlier constant can only be found by the earlier one
+            if(lookup(constant.name()) != null)
+                continue;
+            int slot = hash(constant.name()) & mask;
+            while(table[slot] != null)
+                slot = (slot + 1) & mask;
+            table[slot] = constant;
+        }
+    }
+
+    /**
+     * Gets the parser of the enum
+     * @param <E> the enum type
+     * @param type the enum type
+     * @return the parser of the enum
+     */
+    @SuppressWarnings("unchecked")
+    public static <E extends Enum<E>> EnumParser<E> of(Class<E> type) {
+        return (EnumParser<E>) PARSERS.get(type);
+    }
+
+    /**
+     * Looks up the constant with the given name ignoring case
+     * @param name the name of the constant
+     * @return the constant or null if the enum has no constant with the name
+     */
+    public E lookup(CharSequence name) {
+        int slot = hash(name) & mask;
+        for (var constant = table[slot]; constant != null; constant = table[slot = (slot + 1) & mask]) {
+            if(equalsIgnoreCase(constant.name(), name))
+                return constant;
+        }
+        return null;
+    }
+
+    @Override
+    public E parse(IContext context, ParameterReader arguments) {
+        var name = arguments.readView();
+        var constant = lookup(name);
+        if(constant == null)
+            throw arguments.invalidParameter("'" + name + "' is not a valid " + type.getSimpleName() + ", expected one of " + Arrays.toString(type.getEnumConstants()) + "!");
+        return constant;
+    }
+
+    private static int hash(CharSequence name) {
+        int hash = 0;
+        for (int i = 0; i < name.length(); i++)
+            hash = 31 * hash + Character.toLowerCase(name.charAt(i));
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equalsIgnoreCase(String name, CharSequence input) {
+        if(name.length() != input.length())
+            return false;
+        for (int i = 0; i < name.length(); i++) {
+            if(Character.toLowerCase(name.charAt(i)) != Character.toLowerCase(input.charAt(i)))
+                return false;
+        }
+        return true;
+    }
+}
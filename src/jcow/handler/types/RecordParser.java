@@ -0,0 +1,127 @@
+package jcow.handler.types;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.RecordComponent;
+import java.util.HashSet;
+import java.util.Set;
+
+import jcow.command.IContext;
+import jcow.utils.ParameterReader;
+
+/**
+ * The built-in parser of records, reading the components of the record from consecutive arguments
+ * and creating the record through its canonical constructor. The constructor and the parsers of the
+ * components are resolved once per record class, where a record with a component which has no parser is rejected
+ * right away, as the arguments following such a component could not be read.
+ *
+ * @author KOWI2003
+ */
+public final class RecordParser<R extends Record> implements TypeParser<R> {
+
+    private static final ClassValue<RecordParser<?>> PARSERS = new ClassValue<>() {
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        protected RecordParser<?> computeValue(Class<?> type) {
+            return new RecordParser(type);
+        }
+    };
+    // The records of which the parser is being built on the current thread, as a record may (indirectly) contain itself
+    private static final ThreadLocal<Set<Class<?>>> BUILDING = ThreadLocal.withInitial(HashSet::new);
+
+    private final Class<R> type;
+    private final RecordComponent[] components;
+    private final MethodHandle constructor;
+    private final TypeParser<?>[] componentParsers;
+    // Whether the components containing a record which was still being built have been resolved
+    private volatile boolean resolved;
+
+    private RecordParser(Class<R> type) {
+        this.type = type;
+        this.components = type.getRecordComponents();
+
+        var parameterTypes = new Class<?>[components.length];
+        for (int i = 0; i < components.length; i++)
+            parameterTypes[i] = components[i].getType();
+        try {
+            var canonical = type.getDeclaredConstructor(parameterTypes);
+            canonical.trySetAccessible();
+            this.constructor = MethodHandles.lookup().unreflectConstructor(canonical)
+                .asSpreader(Object[].class, components.length)
+                .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException("The canonical constructor of " + type.getName() + " can not be accessed", e);
+        }
+
+        this.componentParsers = new TypeParser<?>[components.length];
+        var building = BUILDING.get();
+        building.add(type);
+        try {
+            var deferred = false;
+            for (int i = 0; i < components.length; i++) {
+                if(building.contains(components[i].getType())) {
+                    deferred = true;
+                    continue;
+                }
+                componentParsers[i] = TypeParsers.get(components[i].getGenericType());
+                if(componentParsers[i] == null)
+                    throw new IllegalArgumentException("The component " + components[i].getName() + " of " + type.getName() + " has no parser for " + components[i].getGenericType().getTypeName());
+            }
+            this.resolved = !deferred;
+        } finally {
+            building.remove(type);
+        }
+    }
+
+    /**
+     * Gets the parser of the record
+     * @param <R> the record type
+     * @param type the record type
+     * @return the parser of the record
+     * @throws IllegalArgumentException if the canonical constructor of the record can not be accessed
+     * or if a component of the record has no parser
+     */
+    @SuppressWarnings("unchecked")
+    public static <R extends Record> RecordParser<R> of(Class<R> type) {
+        return (RecordParser<R>) PARSERS.get(type);
+    }
+
+    /**
+     * Gets the amount of components of the record
+     * @return the amount of components
+     */
+    public int getComponentCount() {
+        return components.length;
+    }
+
+    @Override
+    public R parse(IContext context, ParameterReader arguments) {
+        var parsers = getComponentParsers();
+        var values = new Object[parsers.length];
+        for (int i = 0; i < parsers.length; i++) {
+            if(!arguments.hasNext())
+                throw arguments.invalidParameter("the " + type.getSimpleName() + " is missing its " + components[i].getName() + "!");
+            values[i] = parsers[i].parse(context, arguments);
+        }
+
+        try {
+            return type.cast((Object) constructor.invokeExact(values));
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to create " + type.getName(), e);
+        }
+    }
+
+    private TypeParser<?>[] getComponentParsers() {
+        if(!resolved) {
+            for (int i = 0; i < components.length; i++) {
+                if(componentParsers[i] == null)
+                    componentParsers[i] = TypeParsers.get(components[i].getType());
+            }
+            resolved = true;
+        }
+        return componentParsers;
+    }
+}
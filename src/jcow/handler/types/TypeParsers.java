@@ -0,0 +1,169 @@
+package jcow.handler.types;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The registry of the {@link TypeParser type parsers} used to parse the controller parameters
+ * which are not a primitive or a string. The registry may be used from any thread.
+ * <br></br>
+ * A parser registered for a type is also used for its subtypes when they have no parser of their own,
+ * where parsers of superclasses are preferred over parsers of interfaces.
+ * <br></br>
+ * Primitives, their wrappers and strings are always parsed by the built-in parsers. Enums and records
+ * without a registered parser use the built-in {@link EnumParser} and {@link RecordParser}.
+ * <br></br>
+ * <b>Note</b>: the parsers of a command are looked up when the command is wrapped, so parsers
+ * should be registered before the commands using them. A command using a type without a parser is rejected.
+ *
+ * @author KOWI2003
+ */
+public final class TypeParsers {
+
+    private static final TypeParser<?> NONE = (context, arguments) -> null;
+
+    private static final Map<Class<?>, TypeParser<?>> PRIMITIVE_PARSERS = Map.ofEntries(
+        Map.entry(String.class, (context, arguments) -> arguments.readString()),
+        Map.entry(int.class, (context, arguments) -> arguments.readInt()),
+        Map.entry(Integer.class, (context, arguments) -> arguments.readInt()),
+        Map.entry(long.class, (context, arguments) -> arguments.readLong()),
+        Map.entry(Long.class, (context, arguments) -> arguments.readLong()),
+        Map.entry(double.class, (context, arguments) -> arguments.readDouble()),
+        Map.entry(Double.class, (context, arguments) -> arguments.readDouble()),
+        Map.entry(float.class, (context, arguments) -> arguments.readFloat()),
+        Map.entry(Float.class, (context, arguments) -> arguments.readFloat()),
+        Map.entry(short.class, (context, arguments) -> arguments.readShort()),
+        Map.entry(Short.class, (context, arguments) -> arguments.readShort()),
+        Map.entry(byte.class, (context, arguments) -> arguments.readByte()),
+        Map.entry(Byte.class, (context, arguments) -> arguments.readByte()),
+        Map.entry(boolean.class, (context, arguments) -> arguments.readBoolean()),
+        Map.entry(Boolean.class, (context, arguments) -> arguments.readBoolean()),
+        Map.entry(char.class, (context, arguments) -> arguments.readChar()),
+        Map.entry(Character.class, (context, arguments) -> arguments.readChar())
+    );
+
+    private static final Map<Class<?>, TypeParser<?>> parsers = new ConcurrentHashMap<>();
+    // The resolved parser of every type looked up so far, including the types without a parser.
+    // Replaced as a whole on every change, so a lookup racing with a change can't store a stale parser in the new cache
+    private static volatile Map<Class<?>, TypeParser<?>> resolved = new ConcurrentHashMap<>();
+
+    private TypeParsers() {}
+
+    /**
+     * Registers the parser for the given type, replacing the parser previously registered for it
+     * @param <T> the type to parse
+     * @param type the type to parse
+     * @param parser the parser of the type
+     */
+    public static <T> void register(Class<T> type, TypeParser<? extends T> parser) {
+        parsers.put(type, parser);
+        resolved = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Removes the parser registered for the given type
+     * @param type the type of which to remove the parser
+     * @return whether a parser was registered for the type
+     */
+    public static boolean unregister(Class<?> type) {
+        var removed = parsers.remove(type) != null;
+        resolved = new ConcurrentHashMap<>();
+        return removed;
+    }
+
+    /**
+     * Gets the parser for the given type, being the parser registered for the type itself or
+     * else the parser of the closest superclass, followed by the parser of the closest interface.
+     * Primitives, enums and records are parsed by the built-in parsers
+     * @param <T> the type to parse
+     * @param type the type to get the parser of
+     * @return the parser of the type, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> TypeParser<T> get(Class<T> type) {
+        var cache = resolved;
+        var parser = cache.get(type);
+        if(parser == null) {
+            parser = resolve(type);
+            cache.put(type, parser);
+        }
+        return parser == NONE ? null : (TypeParser<T>) parser;
+    }
+
+    /**
+     * Gets the parser for the given generic type, for which the raw type of a parameterized type
+     * and the upper bound of a type variable or wildcard is used
+     * @param type the generic type to get the parser of
+     * @return the parser of the type, or null if there is none
+     */
+    public static TypeParser<?> get(Type type) {
+        var raw = getRawType(type);
+        return raw == null ? null : get(raw);
+    }
+
+    /**
+     * Gets the class a generic type erases to
+     * @param type the generic type
+     * @return the erased class, or null for a generic array type
+     */
+    public static Class<?> getRawType(Type type) {
+        if(type instanceof Class<?> clazz)
+            return clazz;
+        if(type instanceof ParameterizedType parameterized)
+            return getRawType(parameterized.getRawType());
+        if(type instanceof TypeVariable<?> variable)
+            return getRawType(variable.getBounds()[0]);
+        if(type instanceof WildcardType wildcard)
+            return getRawType(wildcard.getUpperBounds()[0]);
+        return null;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static TypeParser<?> resolve(Class<?> type) {
+        var primitive = PRIMITIVE_PARSERS.get(type);
+        if(primitive != null)
+            return primitive;
+
+        var registered = resolveRegistered(type);
+        if(registered != NONE)
+            return registered;
+        if(type.isEnum())
+            return EnumParser.of((Class) type);
+        if(type.isRecord())
+            return RecordParser.of((Class) type);
+        return NONE;
+    }
+
+    private static TypeParser<?> resolveRegistered(Class<?> type) {
+        for (var current = type; current != null; current = current.getSuperclass()) {
+            var parser = parsers.get(current);
+            if(parser != null)
+                return parser;
+        }
+
+        // Breadth first, such that the interfaces closest to the type are found first
+        var visited = new HashSet<Class<?>>();
+        var queue = new ArrayDeque<Class<?>>();
+        for (var current = type; current != null; current = current.getSuperclass()) {
+            for (var face : current.getInterfaces())
+                queue.add(face);
+        }
+        while(!queue.isEmpty()) {
+            var face = queue.poll();
+            if(!visited.add(face))
+                continue;
+            var parser = parsers.get(face);
+            if(parser != null)
+                return parser;
+            for (var parent : face.getInterfaces())
+                queue.add(parent);
+        }
+        return NONE;
+    }
+}
@@ -0,0 +1,112 @@
+package jcow.helpers;
+
+/**
+ * The kinds of arguments a token can be parsed as, used to check whether an argument fits a parameter type
+ * without actually parsing it. The kinds are bit flags, as one token can be of multiple kinds.
+ * 
+ * @author KOWI2003
+ */
+public final class ArgumentKind {
+
+    public static final int WHOLE = 1;
+    public static final int DECIMAL = 1 << 1;
+    public static final int BOOLEAN = 1 << 2;
+    public static final int CHARACTER = 1 << 3;
+    public static final int TEXT = 1 << 4;
+
+    private ArgumentKind() {}
+
+    /**
+     * Checks whether the token can be parsed as the given type
+     * @param token the token to check
+     * @param type the type to parse to
+     * @return whether the token is of a kind the type accepts
+     */
+    public static boolean canParse(CharSequence token, Class<?> type) {
+        return (classify(token) & getAcceptedKinds(type)) != 0;
+    }
+
+    /**
+     * Gets the kinds of arguments a parameter of the type accepts
+     * @param type the parameter type
+     * @return the kinds of arguments accepted as flags
+     */
+    public static int getAcceptedKinds(Class<?> type) {
+        if(type == int.class || type == Integer.class || type == long.class || type == Long.class
+            || type == short.class || type == Short.class || type == byte.class || type == Byte.class)
+            return WHOLE;
+        if(type == double.class || type == Double.class || type == float.class || type == Float.class)
+            return WHOLE | DECIMAL;
+        if(type == boolean.class || type == Boolean.class)
+            return BOOLEAN;
+        if(type == char.class || type == Character.class)
+            return CHARACTER;
+        return TEXT;
+    }
+
+    /**
+     * Gets the kinds of arguments the token can be parsed as
+     * @param token the token to classify
+     * @return the kinds of arguments as flags
+     */
+    public static int classify(CharSequence token) {
+        int kinds = TEXT;
+        var length = token.length();
+        if(length == 1)
+            kinds |= CHARACTER;
+        if(equalsIgnoreCase(token, "true") || equalsIgnoreCase(token, "false"))
+            kinds |= BOOLEAN;
+
+        int i = length > 0 && (token.charAt(0) == '-' || token.charAt(0) == '+') ? 1 : 0;
+        int digits = 0;
+        boolean decimal = false;
+        for (; i < length; i++) {
+            var c = token.charAt(i);
+            if(c >= '0' && c <= '9')
+                digits++;
+            else if(c == '.' && !decimal)
+                decimal = true;
+            else
+                break;
+        }
+        if(digits > 0 && i < length && (token.charAt(i) == 'e' || token.charAt(i) == 'E')) {
+            decimal = true;
+            i++;
+            if(i < length && (token.charAt(i) == '-' || token.charAt(i) == '+'))
+                i++;
+            int exponentStart = i;
+            while(i < length && token.charAt(i) >= '0' && token.charAt(i) <= '9')
+                i++;
+            if(i == exponentStart)
+                return kinds;
+        }
+        if(digits == 0 || i < length)
+            return kinds;
+        return kinds | (decimal ? DECIMAL : WHOLE);
+    }
+
+    /**
+     * Gets how specific the accepted kinds of a parameter are, where a lower value is more specific
+     * @param kinds the accepted kinds of a parameter
+     * @return the specificity of the kinds
+     */
+    public static int getSpecificity(int kinds) {
+        if(kinds == WHOLE)
+            return 0;
+        if(kinds == TEXT)
+            return 3;
+        if(kinds == CHARACTER)
+            return 2;
+        return 1;
+    }
+
+    private static boolean equalsIgnoreCase(CharSequence token, String expected) {
+        if(token.length() != expected.length())
+            return false;
+        for (int i = 0; i < expected.length(); i++) {
+            if(Character.toLowerCase(token.charAt(i)) != expected.charAt(i))
+                return false;
+        }
+        return true;
+    }
+}
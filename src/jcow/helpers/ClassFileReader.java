@@ -0,0 +1,138 @@
+package jcow.helpers;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A minimal reader of the class file format, used to check the annotations of a class
+ * from its bytecode without loading the class.
+ *
+ * @author KOWI2003
+ */
+final class ClassFileReader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+
+    private ClassFileReader() {}
+
+    /**
+     * Checks whether the class in the class file is annotated with a runtime visible annotation of the given type
+     * @param classFile the bytes of the class file
+     * @param annotation the annotation type to look for
+     * @return whether the class is annotated, false if the class file could not be read
+     */
+    static boolean hasAnnotation(byte[] classFile, Class<?> annotation) {
+        var descriptor = "L" + annotation.getName().replace('.', '/') + ";";
+        try {
+            return hasAnnotation(ByteBuffer.wrap(classFile), descriptor);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static boolean hasAnnotation(ByteBuffer buffer, String descriptor) {
+        if(buffer.getInt() != MAGIC)
+            return false;
+        buffer.getShort(); // minor version
+        buffer.getShort(); // major version
+
+        // Only the positions of the utf8 entries are kept, other constants are skipped
+        int constantCount = buffer.getShort() & 0xFFFF;
+        var utf8Positions = new int[constantCount];
+        for (int i = 1; i < constantCount; i++) {
+            int tag = buffer.get() & 0xFF;
+            switch (tag) {
+                case 1 -> {
+                    utf8Positions[i] = buffer.position();
+                    buffer.position(buffer.position() + 2 + (buffer.getShort() & 0xFFFF));
+                }
+                case 3, 4, 9, 10, 11, 12, 17, 18 -> skip(buffer, 4);
+                case 5, 6 -> {
+                    skip(buffer, 8);
+                    i++;
+                }
+                case 7, 8, 16, 19, 20 -> skip(buffer, 2);
+                case 15 -> skip(buffer, 3);
+                default -> throw new IllegalArgumentException("Unknown constant pool tag " + tag);
+            }
+        }
+
+        skip(buffer, 6); // access flags, this class and super class
+        skip(buffer, 2 * (buffer.getShort() & 0xFFFF)); // interfaces
+        skipMembers(buffer); // fields
+        skipMembers(buffer); // methods
+
+        int attributeCount = buffer.getShort() & 0xFFFF;
+        for (int i = 0; i < attributeCount; i++) {
+            var name = utf8(buffer, utf8Positions, buffer.getShort() & 0xFFFF);
+            int length = buffer.getInt();
+            if(!RUNTIME_VISIBLE_ANNOTATIONS.equals(name)) {
+                skip(buffer, length);
+                continue;
+            }
+
+            int annotationCount = buffer.getShort() & 0xFFFF;
+            for (int j = 0; j < annotationCount; j++) {
+                if(descriptor.equals(utf8(buffer, utf8Positions, buffer.getShort() & 0xFFFF)))
+                    return true;
+                skipElementValuePairs(buffer);
+            }
+        }
+        return false;
+    }
+
+    private static void skipMembers(ByteBuffer buffer) {
+        int count = buffer.getShort() & 0xFFFF;
+        for (int i = 0; i < count; i++) {
+            skip(buffer, 6); // access flags, name and descriptor
+            int attributeCount = buffer.getShort() & 0xFFFF;
+            for (int j = 0; j < attributeCount; j++) {
+                skip(buffer, 2);
+                skip(buffer, buffer.getInt());
+            }
+        }
+    }
+
+    private static void skipAnnotation(ByteBuffer buffer) {
+        skip(buffer, 2); // type
+        skipElementValuePairs(buffer);
+    }
+
+    private static void skipElementValuePairs(ByteBuffer buffer) {
+        int pairCount = buffer.getShort() & 0xFFFF;
+        for (int i = 0; i < pairCount; i++) {
+            skip(buffer, 2); // name
+            skipElementValue(buffer);
+        }
+    }
+
+    private static void skipElementValue(ByteBuffer buffer) {
+        var tag = (char) (buffer.get() & 0xFF);
+        switch (tag) {
+            case 'B', 'C', 'D', 'F', 'I', 'J', 'S', 'Z', 's', 'c' -> skip(buffer, 2);
+            case 'e' -> skip(buffer, 4);
+            case '@' -> skipAnnotation(buffer);
+            case '[' -> {
+                int count = buffer.getShort() & 0xFFFF;
+                for (int i = 0; i < count; i++)
+                    skipElementValue(buffer);
+            }
+            default -> throw new IllegalArgumentException("Unknown element value tag " + tag);
+        }
+    }
+
+    private static String utf8(ByteBuffer buffer, int[] utf8Positions, int index) {
+        int position = utf8Positions[index];
+        if(position == 0)
+            throw new IllegalArgumentException("Constant " + index + " is not an utf8 entry");
+        int length = buffer.getShort(position) & 0xFFFF;
+        // Names and descriptors are practically always ascii, for which modified utf8 equals utf8
+        return new String(buffer.array(), buffer.arrayOffset() + position + 2, length, StandardCharsets.UTF_8);
+    }
+
+    private static void skip(ByteBuffer buffer, int length) {
+        buffer.position(buffer.position() + length);
+    }
+}
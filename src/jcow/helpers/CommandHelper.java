@@ -5,9 +5,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 
 import jcow.command.IContext;
-import jcow.handler.types.TypeParser;
+import jcow.handler.types.TypeParsers;
+import jcow.utils.CharSlice;
 import jcow.utils.ParameterReader;
 
 /**
@@ -22,38 +25,105 @@ public final class CommandHelper {
     /**
      * Splits the parameters based on the few simple rules of: 
      * <ul>
-     * <li>Spaces split parameters</li>
-     * <li>' brackets makes a section one parameter</li>
-     * <li>" brackets makes a section one parameter, and encompasses ' sections</li>
+     * <li>Whitespace splits parameters, runs of whitespace count as one split</li>
+     * <li>' brackets makes a section one parameter, and encompasses " characters</li>
+     * <li>" brackets makes a section one parameter, and encompasses ' characters</li>
+     * <li>A backslash escapes a following bracket, backslash or whitespace character</li>
      * </ul>
+     * A bracket only opens a section at the start of a parameter and only closes it when it is followed
+     * by whitespace or the end of the input, so brackets inside of a word are kept as they are.
      * <br></br>
-     * this method also cleans any formatting characters like the brackets used
+     * this method also cleans any formatting characters like the brackets used.
+     * The input is read in a single pass, so the cost grows linearly with the length of the input
      * @param input the input string to split for parameters
      * @return an array of the input splits
      * @throws ParameterParseException when a group can not be properly constructed, usually the case when a group has an opening character but not a closing character
      */
     public static String[] splitParameters(String input) {
-        if(!input.contains("\"") && !input.contains("'"))
-            return input.split(" ");
-
-        var splits = input.split(" ");
-        return Arrays.stream(
-            group(group(splits, "\""), "'"))
-            .map(CommandHelper::cleanOuterBrackets)
-            .toArray(String[]::new);
+        var views = splitParameterViews(input);
+        var result = new String[views.length];
+        for (int i = 0; i < views.length; i++)
+            result[i] = views[i].toString();
+        return result;
     }
-    
+
     /**
-     * Cleans out the brackets surrounding the string
-     * @param input the string which needs to be cleaned
-     * @return the cleaned string or the original string if the string was already clean
+     * Splits the parameters using the same rules as {@link CommandHelper#splitParameters(String) splitParameters},
+     * but returns views into the input instead of new strings. Only a parameter containing escaped characters
+     * is copied, as its characters are no longer one section of the input.
+     * @param input the input string to split for parameters
+     * @return an array of views of the input splits
+     * @throws ParameterParseException when a group can not be properly constructed, usually the case when a group has an opening character but not a closing character
      */
-    private static String cleanOuterBrackets(String input) {
-        if(input.startsWith("\"") || input.startsWith("'"))
-            return input.substring(1, input.length()-1);
-        return input;
+    public static CharSlice[] splitParameterViews(String input) {
+        var result = new ArrayList<CharSlice>();
+        var length = input.length();
+        int i = 0;
+        while(true) {
+            while(i < length && isSeparator(input.charAt(i)))
+                i++;
+            if(i >= length)
+                break;
+
+            int start = i;
+            char bracket = input.charAt(i);
+            if(bracket == '"' || bracket == '\'')
+                i++;
+            else
+                bracket = 0;
+
+            // Only allocates a builder when an escape forces the token to be pieced together
+            StringBuilder builder = null;
+            int segmentStart = i;
+            for(; i < length; i++) {
+                var c = input.charAt(i);
+                if(c == '\\' && i+1 < length && isEscapable(input.charAt(i+1))) {
+                    if(builder == null)
+                        builder = new StringBuilder();
+                    builder.append(input, segmentStart, i);
+                    segmentStart = ++i;
+                    continue;
+                }
+
+                if(bracket == 0 ? isSeparator(c) : c == bracket && (i+1 == length || isSeparator(input.charAt(i+1))))
+                    break;
+            }
+
+            if(bracket != 0 && i >= length)
+                throw unclosedBracket(input, start, bracket);
+
+            result.add(builder == null ? CharSlice.of(input, segmentStart, i) : CharSlice.of(builder.append(input, segmentStart, i).toString()));
+            if(bracket != 0)
+                i++;
+        }
+        return result.toArray(CharSlice[]::new);
     }
 
+    private static boolean isSeparator(char c) {
+        return Character.isWhitespace(c);
+    }
+
+    private static boolean isEscapable(char c) {
+        return c == '"' || c == '\'' || c == '\\' || isSeparator(c);
+    }
+
+    /**
+     * Constructs the exception for a bracket which is never closed, the input is split on spaces such that
+     * the index at fault still points to the character of the opening bracket
+     * @param input the complete input string
+     * @param bracketIndex the index of the opening bracket in the input
+     * @param bracket the bracket character which was not closed
+     * @return the exception to throw
+     */
+    private static ParameterParseException unclosedBracket(String input, int bracketIndex, char bracket) {
+        int splitIndex = 0;
+        for (int i = 0; i < bracketIndex; i++) {
+            if(input.charAt(i) == ' ')
+                splitIndex++;
+        }
+        return new ParameterParseException("Failed to parse command parametes as the bracket [" + bracket + "] at index %index% is never closed!", input.split(" ", -1), splitIndex);
+    }
+    
     /**
      * Groups elements of the array together based on the groupBy argument
      * for example: grouping ["'Hello", "World'", "and", "Java"] by ' becomes ["'Hello World'", "and", "Java"]
@@ -156,10 +226,8 @@ public final class CommandHelper {
         return result.toArray(String[]::new);
     }
 
-    private static final Map<Class<?>, TypeParser<?>> typeParsers = new HashMap<>();
-
     /**
-     * Parses the input string into the given type
+     * Parses the input string into the given type through its {@link TypeParsers registered} type parser
      * @param <T> the type to parse to
      * @param type the type to parse to
      * @param annotations the annotations of the parameter (/type)
@@ -168,7 +236,7 @@ public final class CommandHelper {
      * @return the parsed type
      */
     public static <T> T parseType(Class<T> type, Annotation[] annotations, IContext context, ParameterReader reader) {
-        var parser = typeParsers.get(type);
+        var parser = TypeParsers.get(type);
         return parser == null ? null : type.cast(parser.parse(context, reader));
     }
 
@@ -184,19 +252,19 @@ public final class CommandHelper {
      * @return a map of the optional parameters
      * @throws ParameterParseException when an optional parameter has no value
      */
-    public static Map<String, String> getOptionals(String[] parameters) {
+    public static Map<String, String> getOptionals(CharSequence[] parameters) {
         var map = new HashMap<String, String>();
         for(int i = 0; i < parameters.length; i++) {
             var param = parameters[i];
-            if(param.startsWith("--")) {
-                map.put(param, null);
+            if(startsWith(param, "--")) {
+                map.put(param.toString(), null);
                 continue;
-            }else if(param.startsWith("-")) {
+            }else if(startsWith(param, "-")) {
                 if(i+1 >= parameters.length)
-                    throw new ParameterParseException("Failed to parse command parameters as the optional parameter [" + param + "] has no value!", parameters, i);
+                    throw new ParameterParseException("Failed to parse command parameters as the optional parameter [" + param + "] has no value!", toStrings(parameters), i);
 
-                var key = param;
-                var value = parameters[++i];
+                var key = param.toString();
+                var value = parameters[++i].toString();
                 map.put(key, value);
             }
         }
@@ -222,4 +290,87 @@ public final class CommandHelper {
         return list.toArray(String[]::new);
     }
 
+    /**
+     * Removes all of the optional parameters from the given parameter views
+     * @param parameters the list of parameters to remove the optionals from
+     * @return a list of the parameters without the optionals
+     */
+    public static CharSequence[] filterOptionals(CharSequence[] parameters) {
+        var list = new ArrayList<CharSequence>();
+        for (int i = 0; i < parameters.length; i++) {
+            var param = parameters[i];
+            if(startsWith(param, "-")) {
+                if(!startsWith(param, "--")) 
+                    i++;
+                continue;
+            }
+            list.add(param);
+        }
+        return list.toArray(CharSequence[]::new);
+    }
+
+    /**
+     * Gets the name of a flag, being the flag without its leading dashes
+     * @param flag the flag, like "--verbose" or "-v"
+     * @return the name of the flag, like "verbose" or "v"
+     */
+    public static String getFlagName(String flag) {
+        int start = 0;
+        while(start < flag.length() && flag.charAt(start) == '-')
+            start++;
+        return flag.substring(start);
+    }
+
+    /**
+     * Checks whether the sequence starts with the given prefix without constructing a string
+     * @param input the sequence to check
+     * @param prefix the prefix to check for
+     * @return whether the sequence starts with the prefix
+     */
+    public static boolean startsWith(CharSequence input, String prefix) {
+        if(input instanceof String string)
+            return string.startsWith(prefix);
+        if(input.length() < prefix.length())
+            return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if(input.charAt(i) != prefix.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Converts the sequences into strings
+     * @param input the sequences to convert
+     * @return an array of the strings of the sequences
+     */
+    public static String[] toStrings(CharSequence[] input) {
+        if(input instanceof String[] strings)
+            return strings;
+        var result = new String[input.length];
+        for (int i = 0; i < input.length; i++)
+            result[i] = input[i].toString();
+        return result;
+    }
+
+    /**
+     * Waits for the result of an asynchronous command, rethrowing the failure of the command as is
+     * when it is unchecked
+     * @param <T> the type of the result
+     * @param result the future result
+     * @return the result
+     * @throws CompletionException if the command failed with a checked exception
+     */
+    public static <T> T await(CompletionStage<T> result) {
+        try {
+            return result.toCompletableFuture().join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            if(e.getCause() instanceof Error cause)
+                throw cause;
+            throw e;
+        }
+    }
+
 }
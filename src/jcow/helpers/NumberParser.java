@@ -0,0 +1,303 @@
+package jcow.helpers;
+
+/**
+ * Parses numbers straight from the characters of a sequence into their primitive type,
+ * without constructing a string or a boxed number in between.
+ * <br></br>
+ * Whole number types only accept whole numbers which fit in the type, so "3.9" is not a valid int and
+ * a long is exact over its whole range. Malformed or overflowing input results in a {@link NumberFormatException}.
+ *
+ * @author KOWI2003
+ */
+public final class NumberParser {
+
+    // Powers of ten which can be represented exactly
+    private static final double[] DOUBLE_POWERS = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final float[] FLOAT_POWERS = {
+        1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+
+    private NumberParser() {}
+
+    /**
+     * Parses the input as a byte
+     * @param input the characters to parse
+     * @return the parsed byte
+     * @throws NumberFormatException if the input is not a whole number or doesn't fit in a byte
+     */
+    public static byte parseByte(CharSequence input) {
+        return parseByte(input, 0, input.length());
+    }
+
+    /**
+     * Parses the characters in the range of the input as a byte
+     * @param input the characters to parse
+     * @param start the index of the first character, inclusive
+     * @param end the index of the last character, exclusive
+     * @return the parsed byte
+     * @throws NumberFormatException if the range is not a whole number or doesn't fit in a byte
+     */
+    public static byte parseByte(CharSequence input, int start, int end) {
+        return (byte) parseWhole(input, start, end, Byte.MIN_VALUE, Byte.MAX_VALUE, "byte");
+    }
+
+    /**
+     * Parses the input as a short
+     * @param input the characters to parse
+     * @return the parsed short
+     * @throws NumberFormatException if the input is not a whole number or doesn't fit in a short
+     */
+    public static short parseShort(CharSequence input) {
+        return parseShort(input, 0, input.length());
+    }
+
+    /**
+     * Parses the characters in the range of the input as a short
+     * @param input the characters to parse
+     * @param start the index of the first character, inclusive
+     * @param end the index of the last character, exclusive
+     * @return the parsed short
+     * @throws NumberFormatException if the range is not a whole number or doesn't fit in a short
+     */
+    public static short parseShort(CharSequence input, int start, int end) {
+        return (short) parseWhole(input, start, end, Short.MIN_VALUE, Short.MAX_VALUE, "short");
+    }
+
+    /**
+     * Parses the input as an int
+     * @param input the characters to parse
+     * @return the parsed int
+     * @throws NumberFormatException if the input is not a whole number or doesn't fit in an int
+     */
+    public static int parseInt(CharSequence input) {
+        return parseInt(input, 0, input.length());
+    }
+
+    /**
+     * Parses the characters in the range of the input as an int
+     * @param input the characters to parse
+     * @param start the index of the first character, inclusive
+     * @param end the index of the last character, exclusive
+     * @return the parsed int
+     * @throws NumberFormatException if the range is not a whole number or doesn't fit in an int
+     */
+    public static int parseInt(CharSequence input, int start, int end) {
+        return (int) parseWhole(input, start, end, Integer.MIN_VALUE, Integer.MAX_VALUE, "int");
+    }
+
+    /**
+     * Parses the input as a long
+     * @param input the characters to parse
+     * @return the parsed long
+     * @throws NumberFormatException if the input is not a whole number or doesn't fit in a long
+     */
+    public static long parseLong(CharSequence input) {
+        return parseLong(input, 0, input.length());
+    }
+
+    /**
+     * Parses the characters in the range of the input as a long
+     * @param input the characters to parse
+     * @param start the index of the first character, inclusive
+     * @param end the index of the last character, exclusive
+     * @return the parsed long
+     * @throws NumberFormatException if the range is not a whole number or doesn't fit in a long
+     */
+    public static long parseLong(CharSequence input, int start, int end) {
+        return parseWhole(input, start, end, Long.MIN_VALUE, Long.MAX_VALUE, "long");
+    }
+
+    private static long parseWhole(CharSequence input, int start, int end, long min, long max, String typeName) {
+        if(start == end)
+            throw invalid(input, start, end, typeName);
+
+        int i = start;
+        var negative = false;
+        var first = input.charAt(start);
+        if(first == '-' || first == '+') {
+            negative = first == '-';
+            if(++i == end)
+                throw invalid(input, start, end, typeName);
+        }
+
+        // Accumulates negatively, as the negative range is one larger than the positive range
+        long limit = negative ? min : -max;
+        long result = 0;
+        for (; i < end; i++) {
+            int digit = input.charAt(i) - '0';
+            if(digit < 0 || digit > 9)
+                throw invalid(input, start, end, typeName);
+            if(result < limit / 10 || result * 10 < limit + digit)
+                throw new NumberFormatException("'" + input.subSequence(start, end) + "' is out of range for a " + typeName + "!");
+            result = result * 10 - digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Parses the input as a double. Numbers with at most 15 significant digits and a small exponent
+     * are parsed directly, others are handed to {@link Double#parseDouble(String)} to stay correctly rounded
+     * @param input the characters to parse
+     * @return the parsed double
+     * @throws NumberFormatException if the input is not a number
+     */
+    public static double parseDouble(CharSequence input) {
+        return parseDouble(input, 0, input.length());
+    }
+
+    /**
+     * Parses the characters in the range of the input as a double
+     * @param input the characters to parse
+     * @param start the index of the first character, inclusive
+     * @param end the index of the last character, exclusive
+     * @return the parsed double
+     * @throws NumberFormatException if the range is not a number
+     */
+    public static double parseDouble(CharSequence input, int start, int end) {
+        var decimal = Decimal.parse(input, start, end, "double");
+        if(decimal != null && decimal.digits <= 15 && Math.abs(decimal.exponent) < DOUBLE_POWERS.length) {
+            double value = decimal.mantissa;
+            value = decimal.exponent < 0 ? value / DOUBLE_POWERS[-decimal.exponent] : value * DOUBLE_POWERS[decimal.exponent];
+            return decimal.negative ? -value : value;
+        }
+        return Double.parseDouble(input.subSequence(start, end).toString());
+    }
+
+    /**
+     * Parses the input as a float. Numbers with at most 7 significant digits and a small exponent
+     * are parsed directly, others are handed to {@link Float#parseFloat(String)} to stay correctly rounded
+     * @param input the characters to parse
+     * @return the parsed float
+     * @throws NumberFormatException if the input is not a number
+     */
+    public static float parseFloat(CharSequence input) {
+        return parseFloat(input, 0, input.length());
+    }
+
+    /**
+     * Parses the characters in the range of the input as a float
+     * @param input the characters to parse
+     * @param start the index of the first character, inclusive
+     * @param end the index of the last character, exclusive
+     * @return the parsed float
+     * @throws NumberFormatException if the range is not a number
+     */
+    public static float parseFloat(CharSequence input, int start, int end) {
+        var decimal = Decimal.parse(input, start, end, "float");
+        if(decimal != null && decimal.digits <= 7 && Math.abs(decimal.exponent) < FLOAT_POWERS.length) {
+            float value = decimal.mantissa;
+            value = decimal.exponent < 0 ? value / FLOAT_POWERS[-decimal.exponent] : value * FLOAT_POWERS[decimal.exponent];
+            return decimal.negative ? -value : value;
+        }
+        return Float.parseFloat(input.subSequence(start, end).toString());
+    }
+
+    private static NumberFormatException invalid(CharSequence input, int start, int end, String typeName) {
+        var article = typeName.startsWith("i") ? "an " : "a ";
+        return new NumberFormatException("'" + input.subSequence(start, end) + "' is not a valid " + typeName + ", expected " + article + typeName + "!");
+    }
+
+    /**
+     * A decimal number split into its significant digits and its power of ten
+     */
+    private static final class Decimal {
+        private boolean negative;
+        private long mantissa;
+        private int digits;
+        private int exponent;
+
+        /**
+         * Reads a decimal number of the form [sign] digits [. digits] [e [sign] digits]
+         * @param input the characters to read
+         * @param start the index of the first character, inclusive
+         * @param end the index of the last character, exclusive
+         * @param typeName the name of the type for the error message
+         * @return the decimal or null if the input is a special value (NaN or Infinity)
+         * @throws NumberFormatException if the input is not a decimal number
+         */
+        private static Decimal parse(CharSequence input, int start, int end, String typeName) {
+            var decimal = new Decimal();
+            int i = start;
+            if(i < end && (input.charAt(i) == '-' || input.charAt(i) == '+')) {
+                decimal.negative = input.charAt(i) == '-';
+                i++;
+            }
+            if(isSpecial(input, i, end))
+                return null;
+
+            int mantissaDigits = 0;
+            var point = false;
+            for (; i < end; i++) {
+                var c = input.charAt(i);
+                if(c == '.' && !point) {
+                    point = true;
+                    continue;
+                }
+                if(c < '0' || c > '9')
+                    break;
+
+                mantissaDigits++;
+                // Leading zeros are not significant
+                if(decimal.digits == 0 && c == '0') {
+                    if(point)
+                        decimal.exponent--;
+                    continue;
+                }
+                if(decimal.digits < 18) {
+                    decimal.mantissa = decimal.mantissa * 10 + (c - '0');
+                    if(point)
+                        decimal.exponent--;
+                }else if(!point) {
+                    decimal.exponent++;
+                }
+                decimal.digits++;
+            }
+            if(mantissaDigits == 0)
+                throw invalid(input, start, end, typeName);
+
+            if(i < end && (input.charAt(i) == 'e' || input.charAt(i) == 'E')) {
+                i++;
+                var negativeExponent = false;
+                if(i < end && (input.charAt(i) == '-' || input.charAt(i) == '+'))
+                    negativeExponent = input.charAt(i++) == '-';
+
+                int exponentStart = i;
+                int exponent = 0;
+                for (; i < end; i++) {
+                    var c = input.charAt(i);
+                    if(c < '0' || c > '9')
+                        break;
+                    // Anything this large is already out of range, the exact value doesn't matter anymore
+                    exponent = Math.min(exponent * 10 + (c - '0'), 100_000);
+                }
+                if(i == exponentStart)
+                    throw invalid(input, start, end, typeName);
+                decimal.exponent += negativeExponent ? -exponent : exponent;
+            }
+            if(i < end)
+                throw invalid(input, start, end, typeName);
+
+            // More digits than could be kept are left to the exact parser
+            if(decimal.digits > 18)
+                decimal.digits = Integer.MAX_VALUE;
+            return decimal;
+        }
+
+        private static boolean isSpecial(CharSequence input, int start, int end) {
+            return regionEquals(input, start, end, "NaN") || regionEquals(input, start, end, "Infinity");
+        }
+
+        private static boolean regionEquals(CharSequence input, int start, int end, String expected) {
+            if(end - start != expected.length())
+                return false;
+            for (int i = 0; i < expected.length(); i++) {
+                if(input.charAt(start + i) != expected.charAt(i))
+                    return false;
+            }
+            return true;
+        }
+    }
+}
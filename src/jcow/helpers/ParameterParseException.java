@@ -98,7 +98,7 @@ public class ParameterParseException extends CommandParseException {
      */
     @Override
     public String getErrorMessage() {
-        return super.getMessage().replace("%index%", getIndexAtFault() + "");
+        return super.getErrorMessage();
     }
 
     /**
@@ -1,50 +1,214 @@
 package jcow.helpers;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.lang.annotation.Annotation;
+import java.lang.annotation.Inherited;
 import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Array;
 import java.lang.reflect.Field;
+import java.lang.reflect.Member;
 import java.lang.reflect.Method;
-import java.util.Arrays;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.Stack;
 import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.stream.Stream;
 
 import com.google.common.base.Predicate;
 import com.google.common.collect.Sets;
 import com.google.common.reflect.ClassPath;
 
+import jcow.command.annotations.Command;
+import jcow.command.annotations.Controller;
 import jcow.utils.Pair;
 
 public final class ReflectionHelper {
     
     private ReflectionHelper() {}
 
+    /**
+     * The resource listing the binary names of all {@link Command} classes, one per line.
+     * This index is generated by the {@link jcow.processor.CommandProcessor CommandProcessor}
+     */
+    public static final String COMMAND_INDEX = "META-INF/jcow/commands";
+
     /**
      * Gets all classes in a certain folder
      * and underlying folders that have the specified annotation over the class
-     * as long as the annotation has a retention of runtime
+     * as long as the annotation has a retention of runtime.
+     * <br></br>
+     * When looking for {@link Command} classes and a {@link ReflectionHelper#COMMAND_INDEX command index} is available,
+     * only the indexed classes are loaded without looking at the rest of the classpath. Otherwise the classpath is scanned,
+     * where the annotations are read from the bytecode in parallel and only the annotated classes are loaded.
+     * {@link Inherited} annotations can not be seen in the bytecode of a subclass, so for those all classes are loaded, but not initialized
      * @param packageName the name of the package containing the classes
      * @param annotation the annotation to check for to get the classes
      * @param <T> the type of the annotation
      * @return a list of pairs of classes and the annotation
      */
-    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @SuppressWarnings("rawtypes")
     public static <T extends Annotation> List<Pair<Class, T>>
     getAnnotatedClasses(String packageName, Class<T> annotation) {
-        return getClasses(packageName)
+        return getAnnotatedClasses(packageName, annotation, false);
+    }
+
+    /**
+     * Gets all classes in a certain folder and underlying folders that have the specified annotation,
+     * the same as {@link ReflectionHelper#getAnnotatedClasses(String, Class)}, but with the option to also scan
+     * the classpath roots without a {@link ReflectionHelper#COMMAND_INDEX command index} when an index is available.
+     * This finds the commands of libraries built without the processor, at the cost of enumerating the whole classpath
+     * @param packageName the name of the package containing the classes
+     * @param annotation the annotation to check for to get the classes
+     * @param scanUnindexedRoots whether the roots without a command index are scanned as well
+     * @param <T> the type of the annotation
+     * @return a list of pairs of classes and the annotation
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static <T extends Annotation> List<Pair<Class, T>>
+    getAnnotatedClasses(String packageName, Class<T> annotation, boolean scanUnindexedRoots) {
+        var classes = annotation == Command.class ? getIndexedClasses(packageName, scanUnindexedRoots) : null;
+        if(classes == null && !annotation.isAnnotationPresent(Inherited.class))
+            classes = getClassesByBytecode(packageName, annotation, Set.of());
+        if(classes == null)
+            classes = getClasses(packageName);
+
+        return classes
             .filter(type -> type.isAnnotationPresent(annotation))
             .map(type -> Pair.of(type, (T)type.getAnnotation(annotation)))
             .toList();
     }
 
+    /**
+     * Gets all of the {@link Command} classes in a certain package and below which are listed in the
+     * {@link ReflectionHelper#COMMAND_INDEX command index} of every classpath root which has one
+     * @param packageName the name of the package containing the classes
+     * @param scanUnindexedRoots whether the bytecode of the roots without an index is scanned as well
+     * @return a stream of the command classes or null if no index is available at all
+     */
+    @SuppressWarnings("rawtypes")
+    private static Stream<Class> getIndexedClasses(String packageName, boolean scanUnindexedRoots) {
+        var classLoader = ReflectionHelper.class.getClassLoader();
+        if(classLoader == null || packageName == null) return null;
+
+        var names = new LinkedHashSet<String>();
+        var indexedRoots = new HashSet<String>();
+        try {
+            var indexes = classLoader.getResources(COMMAND_INDEX);
+            while(indexes.hasMoreElements()) {
+                var index = indexes.nextElement();
+                if(readIndex(index, packageName, names))
+                    indexedRoots.add(getRoot(index, COMMAND_INDEX));
+            }
+        } catch (IOException e) {
+            // The indexes can't be listed, so all of the roots are scanned
+            return null;
+        }
+        if(indexedRoots.isEmpty())
+            return null;
+
+        var indexed = names.stream()
+            .map(name -> getClassFromName(name, classLoader))
+            .filter(clazz -> clazz != null);
+        if(!scanUnindexedRoots)
+            return indexed;
+        return Stream.concat(indexed, getClassesByBytecode(packageName, Command.class, indexedRoots)).distinct();
+    }
+
+    /**
+     * Reads the class names in a certain package and below from a command index
+     * @param index the location of the index
+     * @param packageName the name of the package containing the classes
+     * @param names the names to add the read names to
+     * @return whether the index could be read, otherwise its root counts as a root without an index
+     */
+    private static boolean readIndex(URL index, String packageName, Set<String> names) {
+        var read = new ArrayList<String>();
+        try(var reader = new BufferedReader(new InputStreamReader(index.openStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while((line = reader.readLine()) != null) {
+                line = line.trim();
+                if(!line.isEmpty() && !line.startsWith("#") && isInPackage(line, packageName))
+                    read.add(line);
+            }
+        } catch (IOException e) {
+            return false;
+        }
+        names.addAll(read);
+        return true;
+    }
+
+    /**
+     * Gets the classpath root of a resource, being the location of the resource without the resource name
+     * @param resource the location of the resource
+     * @param resourceName the name of the resource within its root
+     * @return the location of the root
+     */
+    private static String getRoot(URL resource, String resourceName) {
+        var location = resource.toString();
+        return location.endsWith(resourceName) ? location.substring(0, location.length() - resourceName.length()) : location;
+    }
+
+    private static boolean isInPackage(String className, String packageName) {
+        return packageName.isEmpty() || className.startsWith(packageName + ".");
+    }
+
+    /**
+     * Gets all classes in a certain folder and underlying folders (Recursively) of which the
+     * bytecode shows the annotation. The class files are read in parallel and only the annotated classes are loaded
+     * @param packageName the name of the package containing the classes
+     * @param annotation the annotation the classes should have
+     * @param skippedRoots the classpath roots of which the classes are not scanned
+     * @return a stream of the annotated classes in a certain package and below
+     */
+    @SuppressWarnings("rawtypes")
+    private static Stream<Class> getClassesByBytecode(String packageName, Class<? extends Annotation> annotation, Set<String> skippedRoots) {
+        try {
+            var classLoader = ReflectionHelper.class.getClassLoader();
+            if(classLoader == null || packageName == null) return Stream.of();
+
+            var path = ClassPath.from(classLoader);
+            // The reading is done up front, such that it runs on the common fork join pool
+            return path.getTopLevelClassesRecursive(packageName)
+                .parallelStream()
+                .filter(info -> skippedRoots.isEmpty() || !skippedRoots.contains(getRoot(info.url(), info.getResourceName())))
+                .filter(info -> hasAnnotation(info, annotation))
+                .map(info -> getClassFromName(info.getName(), classLoader))
+                .filter(clazz -> clazz != null)
+                .toList()
+                .stream();
+        } catch (IOException e) {
+            System.err.println("Failed to load classes from invalid package {"
+                    + packageName + "}");
+            e.printStackTrace();
+        }
+        return Stream.of();
+    }
+
+    private static boolean hasAnnotation(ClassPath.ClassInfo info, Class<? extends Annotation> annotation) {
+        try {
+            return ClassFileReader.hasAnnotation(info.asByteSource().read(), annotation);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
     /**
      * Gets all classes in a certain
      * folder and underlying folders (Recursively)
+     * <br></br>
+     * <b>Note</b>: the classes are loaded but not initialized
      * @param packageName the name of the package containing the classes
      * @return a stream of all classes in a certain package and below
      */
@@ -57,7 +221,7 @@ public final class ReflectionHelper {
             var path = ClassPath.from(classLoader);
             return path.getTopLevelClassesRecursive(packageName)
                 .stream()
-                .map(info -> getClassFromName(info.getName()))
+                .map(info -> getClassFromName(info.getName(), classLoader))
                 .filter(clazz -> clazz != null);
         } catch (IOException e) {
             System.err.println("Failed to load classes from invalid package {"
@@ -68,16 +232,18 @@ public final class ReflectionHelper {
     }
     
     /**
-     * Gets a class from its specified name
+     * Gets a class from its specified name without initializing it,
+     * such that no static initializers are run for classes which are only inspected
      * @param className the specified name of a class
+     * @param classLoader the class loader to load the class with
      * @return the class of the specified name
      * Or null if no class should be found
      */
     @SuppressWarnings("rawtypes")
-    private static Class getClassFromName(String className) {
+    private static Class getClassFromName(String className, ClassLoader classLoader) {
         try {
-            return Class.forName(className);
-        } catch (ClassNotFoundException e) {}
+            return Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException | LinkageError e) {}
         return null;
     }
 
@@ -103,63 +269,190 @@ public final class ReflectionHelper {
     }
 
     /**
-     * Tries to parse a number from the given input string
+     * Tries to parse a number from the given input string, using the {@link NumberParser} of the type.
+     * Whole number types only accept whole numbers which fit in the type
      * @param <T> the type of the number
      * @param input the input string to parse
      * @param resultType the type to parse to
      * @return the parsed number of the correct type
+     * @throws NumberFormatException if the input is not a valid number of the type
      */
-    public static <T> Object parseNumber(String input, Class<T> resultType) {
-        // Not my proudest piece of code, but honestly don't know how to do this as precise
-        // without using libaries
-        var number = Double.valueOf(input);
-        if(resultType == Integer.class)
-            return (Integer)number.intValue();
-        if(resultType == int.class)
-            return number.intValue();
-        if(resultType == Byte.class)
-            return (Byte)number.byteValue();
-        if(resultType == byte.class)
-            return number.byteValue();
-        if(resultType == Long.class)
-            return (Long)number.longValue();
-        if(resultType == long.class)
-            return number.longValue();
-        if(resultType == Double.class)
-            return (Double)number.doubleValue();
-        if(resultType == double.class)
-            return number.doubleValue();
-        if(resultType == Float.class)
-            return (Float)number.floatValue();
-        if(resultType == float.class)
-            return number.floatValue();
-        if(resultType == Short.class)
-            return (Short)number.shortValue();
-        if(resultType == short.class)
-            return number.shortValue();
+    public static <T> Object parseNumber(CharSequence input, Class<T> resultType) {
+        if(resultType == int.class || resultType == Integer.class)
+            return NumberParser.parseInt(input);
+        if(resultType == long.class || resultType == Long.class)
+            return NumberParser.parseLong(input);
+        if(resultType == double.class || resultType == Double.class)
+            return NumberParser.parseDouble(input);
+        if(resultType == float.class || resultType == Float.class)
+            return NumberParser.parseFloat(input);
+        if(resultType == short.class || resultType == Short.class)
+            return NumberParser.parseShort(input);
+        if(resultType == byte.class || resultType == Byte.class)
+            return NumberParser.parseByte(input);
         return null;
     }
 
+    /**
+     * Gets the default value of the type, which is the value of an uninitialized field of the type
+     * @param type the type to get the default value of
+     * @return zero or false for primitives, null for any other type
+     */
+    public static Object getDefaultValue(Class<?> type) {
+        return type.isPrimitive() && type != void.class ? Array.get(Array.newInstance(type, 1), 0) : null;
+    }
+
     /**
      * Tries to parse the given string into the primitive type supplied
      * <br></br>
-     * <b>Note</b>: in this case a String is considered a primitive 
+     * <b>Note</b>: in this case a String is considered a primitive, and is the only type
+     * for which a new string is constructed from the input
      * @param input the input string to parse
      * @param type the type to parse to
      * @return the parsed primitive of the correct type
      */
-    public static Object parsePrimitive(String input, Class<?> type) {
+    public static Object parsePrimitive(CharSequence input, Class<?> type) {
         if(isNumber(type))
             return parseNumber(input, type);
         if(type == boolean.class || type == Boolean.class)
-            return Boolean.parseBoolean(input);
+            return parseBoolean(input);
         if(type == char.class || type == Character.class)
-            return input.charAt(0);
+            return parseCharacter(input);
         if(type == String.class)
-            return input;
+            return input.toString();
         return null;
     }
 
+    /**
+     * Parses a boolean the same way as {@link Boolean#parseBoolean(String)} without constructing a string
+     * @param input the input to parse
+     * @return true if the input equals "true" ignoring case, false otherwise
+     */
+    public static boolean parseBoolean(CharSequence input) {
+        var expected = "true";
+        if(input == null || input.length() != expected.length())
+            return false;
+        for (int i = 0; i < expected.length(); i++) {
+            if(Character.toLowerCase(input.charAt(i)) != expected.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Parses a character as the first character of the input
+     * @param input the input to parse
+     * @return the first character of the input
+     * @throws IllegalArgumentException if the input is empty
+     */
+    public static char parseCharacter(CharSequence input) {
+        if(input.length() == 0)
+            throw new IllegalArgumentException("'' is not a valid char, expected a character!");
+        return input.charAt(0);
+    }
+
+    /**
+     * The cached members of a class, such that the declared members don't have to be copied
+     * and filtered on every lookup. Stored in a {@link ClassValue} so the cache is shared between threads
+     * and is released together with the class when it is unloaded
+     */
+    private static final ClassValue<Members> MEMBERS = new ClassValue<>() {
+        @Override
+        protected Members computeValue(Class<?> type) {
+            return new Members(type);
+        }
+    };
+
+    private static final Method[] NO_METHODS = new Method[0];
+    private static final Field[] NO_FIELDS = new Field[0];
+
+    private static final class Members {
+        private final Method[] methods;
+        private final Field[] fields;
+
+        // The @Controller members mapped by their controller name
+        private final Map<String, Method[]> controllerMethods;
+        private final Map<String, Field[]> controllerFields;
+
+        private Members(Class<?> type) {
+            this.methods = type.getDeclaredMethods();
+            this.fields = type.getDeclaredFields();
+            this.controllerMethods = indexControllers(methods, Method[]::new);
+            this.controllerFields = indexControllers(fields, Field[]::new);
+        }
+
+        private static <T extends AccessibleObject> Map<String, T[]> indexControllers(T[] members, IntFunction<T[]> arrayConstructor) {
+            var index = new LinkedHashMap<String, List<T>>();
+            for (var member : members) {
+                if(member.isAnnotationPresent(Controller.class))
+                    index.computeIfAbsent(getControllerName(member), name -> new ArrayList<>()).add(member);
+            }
+
+            var result = new LinkedHashMap<String, T[]>();
+            index.forEach((name, controllers) -> result.put(name, controllers.toArray(arrayConstructor)));
+            return Collections.unmodifiableMap(result);
+        }
+    }
+
+    /**
+     * Gets the name a member is mapped to as a controller, which is the value of its {@link Controller} annotation
+     * or the name of the member if no value is given
+     * @param member the member to get the name of
+     * @return the controller name of the member
+     */
+    public static String getControllerName(AccessibleObject member) {
+        var controller = member.getAnnotation(Controller.class);
+        if(controller != null && !controller.value().isEmpty())
+            return controller.value();
+
+        return switch (member) {
+            case Field field -> field.getName();
+            case Method method -> method.getName();
+            default -> member.toString();
+        };
+    }
+
+    /**
+     * Gets all of the {@link Controller} methods of the class mapped by their controller name,
+     * overloads are mapped to the same name
+     * @param type the type to get the controllers of
+     * @return an unmodifiable map of the controller methods by name
+     */
+    public static Map<String, Method[]> getControllerMethods(Class<?> type) {
+        return MEMBERS.get(type).controllerMethods;
+    }
+
+    /**
+     * Gets all of the {@link Controller} fields of the class mapped by their controller name
+     * @param type the type to get the controllers of
+     * @return an unmodifiable map of the controller fields by name
+     */
+    public static Map<String, Field[]> getControllerFields(Class<?> type) {
+        return MEMBERS.get(type).controllerFields;
+    }
+
+    /**
+     * Gets the {@link Controller} methods of the class with the controller name
+     * @param type the type to get the methods from
+     * @param name the controller name of the methods
+     * @return a copy of the methods with the name or an empty array if no method is found
+     */
+    public static Method[] getControllerMethods(Class<?> type, String name) {
+        var methods = MEMBERS.get(type).controllerMethods.get(name);
+        return methods == null ? NO_METHODS : methods.clone();
+    }
+
+    /**
+     * Gets the first {@link Controller} field of the class with the controller name
+     * @param type the type to get the field from
+     * @param name the controller name of the field
+     * @return the field with the name or null if no field is found
+     */
+    public static Field getControllerField(Class<?> type, String name) {
+        var fields = MEMBERS.get(type).controllerFields.get(name);
+        return fields == null ? null : fields[0];
+    }
+
     /**
      * Gets a field from a class with the specified name
      * @param type the type to get the field from
@@ -179,12 +472,12 @@ public final class ReflectionHelper {
      * @return the field with the specified name and satisfies the filter or null if no field is found
      */
     public static Field getField(Class<?> type, String name, Predicate<Field> filter, Function<Field, String> nameMapper) {
-        Function<Field, String> mapper = nameMapper == null ? field -> field.getName() : nameMapper;
-        Predicate<Field> finalFilter = field -> 
-            mapper.apply(field).equals(name) && (filter == null ? true : filter.test(field));
-
-        var fields = getField(type, finalFilter);
-        return fields.length == 0 ? null : fields[0];
+        if(type == null || name == null) return null;
+        for (var field : MEMBERS.get(type).fields) {
+            if(matches(field, name, filter, nameMapper))
+                return field;
+        }
+        return null;
     }
 
     /**
@@ -196,11 +489,13 @@ public final class ReflectionHelper {
      * @return array of fields with the specified name and satisfies the filter or null if no field is found
      */
     public static Field[] getFields(Class<?> type, String name, Predicate<Field> filter, Function<Field, String> nameMapper) {
-        Function<Field, String> mapper = nameMapper == null ? field -> field.getName() : nameMapper;
-        Predicate<Field> finalFilter = field -> 
-            mapper.apply(field).equals(name) && (filter == null ? true : filter.test(field));
-
-        return getField(type, finalFilter);
+        if(type == null) return null;
+        var result = new ArrayList<Field>();
+        for (var field : MEMBERS.get(type).fields) {
+            if(matches(field, name, filter, nameMapper))
+                result.add(field);
+        }
+        return result.isEmpty() ? NO_FIELDS : result.toArray(Field[]::new);
     }
 
     /**
@@ -211,10 +506,16 @@ public final class ReflectionHelper {
      */
     public static Field[] getField(Class<?> type, Predicate<Field> filter) {
         if(type == null) return null;
-        filter = filter == null ? field -> true : filter;
-        return Arrays.stream(type.getDeclaredFields())
-            .filter(filter)
-            .toArray(Field[]::new);
+        var fields = MEMBERS.get(type).fields;
+        if(filter == null)
+            return fields.clone();
+
+        var result = new ArrayList<Field>();
+        for (var field : fields) {
+            if(filter.apply(field))
+                result.add(field);
+        }
+        return result.isEmpty() ? NO_FIELDS : result.toArray(Field[]::new);
     }
 
     /**
@@ -238,11 +539,11 @@ public final class ReflectionHelper {
      */
     public static Method getMethod(Class<?> type, String name, Predicate<Method> filter, Function<Method, String> nameMapper) {
         if(type == null || name == null) return null;
-        Function<Method, String> mapper = nameMapper == null ? method -> method.getName() : nameMapper;
-        return Arrays.stream(getMethod(type, filter))
-            .filter(method -> mapper.apply(method).equals(name))
-            .findFirst()
-            .orElse(null);
+        for (var method : MEMBERS.get(type).methods) {
+            if(matches(method, name, filter, nameMapper))
+                return method;
+        }
+        return null;
     }
 
     /**
@@ -255,9 +556,12 @@ public final class ReflectionHelper {
      */
     public static Method[] getMethods(Class<?> type, String name, Predicate<Method> filter, Function<Method, String> nameMapper) {
         if(type == null || name == null) return null;
-        Function<Method, String> mapper = nameMapper == null ? method -> method.getName() : nameMapper;
-        return Arrays.stream(getMethod(type, filter))
-            .filter(method -> mapper.apply(method).equals(name)).toArray(Method[]::new);
+        var result = new ArrayList<Method>();
+        for (var method : MEMBERS.get(type).methods) {
+            if(matches(method, name, filter, nameMapper))
+                result.add(method);
+        }
+        return result.isEmpty() ? NO_METHODS : result.toArray(Method[]::new);
     }
 
     /**
@@ -268,10 +572,43 @@ public final class ReflectionHelper {
      */
     public static Method[] getMethod(Class<?> type, Predicate<Method> filter) {
         if(type == null ) return null;
-        filter = filter == null ? method -> true : filter;
-        return Arrays.stream(type.getDeclaredMethods())
-            .filter(filter)
-            .toArray(Method[]::new);
+        var methods = MEMBERS.get(type).methods;
+        if(filter == null)
+            return methods.clone();
+
+        var result = new ArrayList<Method>();
+        for (var method : methods) {
+            if(filter.apply(method))
+                result.add(method);
+        }
+        return result.isEmpty() ? NO_METHODS : result.toArray(Method[]::new);
+    }
+
+    private static <T extends Member> boolean matches(T member, String name, Predicate<T> filter, Function<T, String> nameMapper) {
+        var memberName = nameMapper == null ? member.getName() : nameMapper.apply(member);
+        return memberName.equals(name) && (filter == null || filter.apply(member));
+    }
+
+    /**
+     * Gets the length of the path to the {@link Controller} method in the class, 
+     * where the path is a path through the controller fields of the class
+     * @param type the type to get the method from
+     * @param path the path to the method
+     * @return the length of the path to the method or -1 if no method is found
+     */
+    public static int getPathLength(Class<?> type, CharSequence[] path) {
+        for (int i = 0; i < path.length; i++) {
+            var current = path[i].toString();
+            var members = MEMBERS.get(type);
+            if(members.controllerMethods.containsKey(current))
+                return i;
+
+            var fields = members.controllerFields.get(current);
+            if(fields == null)
+                return -1;
+            type = fields[0].getType();
+        }
+        return -1;
     }
 
     /**
@@ -282,9 +619,9 @@ public final class ReflectionHelper {
      * @param nameMapper the mapper for the name of a member, this may be null then the normal name of the member is used
      * @return the length of the path to the method where each element in the path satisfies the filter or -1 if no method is found
      */
-    public static int getPathLength(Class<?> type, String[] path, Predicate<AccessibleObject> filter, Function<AccessibleObject, String> nameMapper) {
+    public static int getPathLength(Class<?> type, CharSequence[] path, Predicate<AccessibleObject> filter, Function<AccessibleObject, String> nameMapper) {
         for (int i = 0; i < path.length; i++) {
-            var current = path[i];
+            var current = path[i].toString();
 
             // if a method exists then we can just get the method and return it
             var method = getMethod(type, current, member -> filter.apply(member), member -> nameMapper.apply(member));
@@ -300,6 +637,18 @@ public final class ReflectionHelper {
         return -1;
     }
 
+    /**
+     * Gets a {@link Controller} method from a class with the specified path, 
+     * this path is a path through the controller fields of the class given
+     * @param type the type to get the method from
+     * @param path the path to the method
+     * @return the first method with the specified path or null if no method is found
+     */
+    public static Method getMethod(Class<?> type, CharSequence[] path) {
+        var methods = getMethods(type, path);
+        return methods == null || methods.length == 0 ? null : methods[0];
+    }
+
     /**
      * Gets a method from a class with the specified path, this path is a path through the fields of the class given
      * @param type the type to get the method from
@@ -308,9 +657,9 @@ public final class ReflectionHelper {
      * @param nameMapper the mapper for the name of a member, this may be null then the normal name of the member is used
      * @return the method with the specified path where each element in the path satisfies the filter or null if no method is found
      */
-    public static Method getMethod(Class<?> type, String[] path, Predicate<AccessibleObject> filter, Function<AccessibleObject, String> nameMapper) {
+    public static Method getMethod(Class<?> type, CharSequence[] path, Predicate<AccessibleObject> filter, Function<AccessibleObject, String> nameMapper) {
         for (int i = 0; i < path.length; i++) {
-            var current = path[i];
+            var current = path[i].toString();
 
             // if a method exists then we can just get the method and return it
             var method = getMethod(type, current, member -> filter.apply(member), member -> nameMapper.apply(member));
@@ -326,6 +675,29 @@ public final class ReflectionHelper {
         return null;
     }
 
+    /**
+     * Gets all {@link Controller} methods from a class with the specified path, 
+     * this path is a path through the controller fields of the class given
+     * @param type the type to get the method from
+     * @param path the path to the method
+     * @return array of methods with the specified path, null if the path leads nowhere or an empty array if the path ends before a method
+     */
+    public static Method[] getMethods(Class<?> type, CharSequence[] path) {
+        for (int i = 0; i < path.length; i++) {
+            var current = path[i].toString();
+            var members = MEMBERS.get(type);
+            var methods = members.controllerMethods.get(current);
+            if(methods != null)
+                return methods.clone();
+
+            var fields = members.controllerFields.get(current);
+            if(fields == null)
+                return null;
+            type = fields[0].getType();
+        }
+        return NO_METHODS;
+    }
+
     /**
      * Gets all methods from a class with the specified path, this path is a path through the fields of the class given
      * @param type the type to get the method from
@@ -334,9 +706,9 @@ public final class ReflectionHelper {
      * @param nameMapper the mapper for the name of a member, this may be null then the normal name of the member is used
      * @return array of methods with the specified path where each element in the path satisfies the filter or an empty array if no method was found
      */
-    public static Method[] getMethods(Class<?> type, String[] path, Predicate<AccessibleObject> filter, Function<AccessibleObject, String> nameMapper) {
+    public static Method[] getMethods(Class<?> type, CharSequence[] path, Predicate<AccessibleObject> filter, Function<AccessibleObject, String> nameMapper) {
         for (int i = 0; i < path.length; i++) {
-            var current = path[i];
+            var current = path[i].toString();
 
             // if a method exists then we can just get the method and return it
             var methods = getMethods(type, current, member -> filter.apply(member), member -> nameMapper.apply(member));
@@ -349,7 +721,42 @@ public final class ReflectionHelper {
                 return null;
             type = field.getType();
         }
-        return new Method[0];
+        return NO_METHODS;
+    }
+
+    /**
+     * Gets all {@link Controller} methods from a class with the specified path, 
+     * this path is a path through the controller fields of the class given
+     * @param type the type to get the method from
+     * @param path the path to the method
+     * @return a map of all the found methods along the path given mapped to the index in the path
+     */
+    public static Map<Method, Integer> getAllMethodsAlongPath(Class<?> type, CharSequence[] path) {
+        var result = new HashMap<Method, Integer>(); 
+        
+        var fields = new ArrayDeque<Pair<Class<?>, Integer>>();
+        fields.push(Pair.of(type, 0));
+
+        while(!fields.isEmpty()) {
+            var fieldInfo = fields.pop();
+            int index = fieldInfo.second();
+            if(index >= path.length)
+                continue;
+
+            var current = path[index].toString();
+            var members = MEMBERS.get(fieldInfo.first());
+            var methods = members.controllerMethods.get(current);
+            if(methods != null)
+                for (var method : methods)
+                    result.put(method, index);
+            
+            var founds = members.controllerFields.get(current);
+            if(founds != null)
+                for (var found : founds)
+                    fields.push(Pair.of(found.getType(), index + 1));
+        }
+        
+        return result; 
     }
 
     /**
@@ -360,18 +767,20 @@ public final class ReflectionHelper {
      * @param nameMapper the mapper for the name of a member, this may be null then the normal name of the member is used
      * @return a map of all the found methods along the path given mapped to the index in the path, where each element in the path satisfies the filter
      */
-    public static Map<Method, Integer> getAllMethodsAlongPath(Class<?> type, String[] path, Predicate<AccessibleObject> filter, Function<AccessibleObject, String> nameMapper) {
+    public static Map<Method, Integer> getAllMethodsAlongPath(Class<?> type, CharSequence[] path, Predicate<AccessibleObject> filter, Function<AccessibleObject, String> nameMapper) {
         var result = new HashMap<Method, Integer>(); 
         
-        var fields = new Stack<Pair<Class<?>, Integer>>();
-        fields.add(Pair.of(type, 0));
+        var fields = new ArrayDeque<Pair<Class<?>, Integer>>();
+        fields.push(Pair.of(type, 0));
 
         while(!fields.isEmpty()) {
             var fieldInfo = fields.pop();
             type = fieldInfo.first();
             int index = fieldInfo.second();
+            if(index >= path.length)
+                continue;
 
-            var current = path[index];
+            var current = path[index].toString();
             var methods = getMethods(type, current, member -> filter.apply(member), member -> nameMapper.apply(member));
             
             if(methods.length > 0)
@@ -381,7 +790,7 @@ public final class ReflectionHelper {
             var founds = getFields(type, current, member -> filter.apply(member), member -> nameMapper.apply(member));
             if(founds.length == 0) continue;
             for (var found : founds)
-                fields.add(Pair.of(found.getType(), index + 1));
+                fields.push(Pair.of(found.getType(), index + 1));
         }
         
         return result; 
@@ -0,0 +1,124 @@
+package jcow.processor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.StandardLocation;
+import javax.tools.Diagnostic.Kind;
+
+import jcow.command.annotations.Command;
+import jcow.handler.CommandWrapper;
+import jcow.helpers.ReflectionHelper;
+
+/**
+ * An annotation processor generating a dispatcher for every class annotated with {@link Command}.
+ * A dispatcher is an {@link jcow.command.ICommand ICommand} which resolves the controllers and calls
+ * the controller methods directly, such that no reflection is needed when invoking the command.
+ * <br></br>
+ * Use {@link CommandWrapper#wrap(Class) CommandWrapper.wrap} to get the generated dispatcher of a class,
+ * which falls back to a {@link CommandWrapper} when no dispatcher has been generated.
+ * A class for which no dispatcher can be generated is reported as a note and is left to the
+ * {@link CommandWrapper}.
+ * <br></br>
+ * The processor also writes the {@link ReflectionHelper#COMMAND_INDEX command index}, listing all of the command
+ * classes such that they can be found at startup without scanning the classpath. The index of a previous compilation
+ * is merged into the new index, such that an incremental build compiling only some of the commands keeps the others.
+ *
+ * @author KOWI2003
+ */
+@SupportedAnnotationTypes("jcow.command.annotations.Command")
+public class CommandProcessor extends AbstractProcessor {
+
+    // The binary names of the command classes for the command index
+    private final Set<String> commands = new TreeSet<>();
+    private final List<Element> origins = new ArrayList<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if(roundEnv.processingOver()) {
+            writeIndex();
+            return false;
+        }
+
+        for (var element : roundEnv.getElementsAnnotatedWith(Command.class)) {
+            if(element.getKind() != ElementKind.CLASS)
+                continue;
+
+            var type = (TypeElement) element;
+            commands.add(processingEnv.getElementUtils().getBinaryName(type).toString());
+            origins.add(type);
+            try {
+                new DispatcherWriter(processingEnv, type).write();
+            } catch (UnsupportedCommandException e) {
+                processingEnv.getMessager().printMessage(Kind.NOTE, "No dispatcher generated for " + type.getQualifiedName() + ": " + e.getMessage(), e.getElement());
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Kind.ERROR, "Failed to write the dispatcher of " + type.getQualifiedName() + ": " + e.getMessage(), type);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes the {@link ReflectionHelper#COMMAND_INDEX command index} listing all of the command classes,
+     * being the classes of this compilation together with the classes of the previous index which still exist
+     */
+    private void writeIndex() {
+        if(commands.isEmpty())
+            return;
+
+        commands.addAll(readIndex());
+        try {
+            var file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", ReflectionHelper.COMMAND_INDEX, origins.toArray(Element[]::new));
+            try(var writer = file.openWriter()) {
+                for (var command : commands)
+                    writer.write(command + "\n");
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Kind.ERROR, "Failed to write the command index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the command index of a previous compilation from the output, leaving out the classes which
+     * no longer exist or are no longer commands
+     * @return the binary names of the previously indexed command classes
+     */
+    private Set<String> readIndex() {
+        var indexed = new TreeSet<String>();
+        try {
+            var file = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", ReflectionHelper.COMMAND_INDEX);
+            try(var reader = new BufferedReader(file.openReader(true))) {
+                String line;
+                while((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if(!line.isEmpty() && !line.startsWith("#") && isCommand(line))
+                        indexed.add(line);
+                }
+            }
+        } catch (IOException e) {
+            // No index has been written before
+        }
+        return indexed;
+    }
+
+    private boolean isCommand(String binaryName) {
+        var type = processingEnv.getElementUtils().getTypeElement(binaryName.replace('$', '.'));
+        return type != null && type.getAnnotation(Command.class) != null;
+    }
+}
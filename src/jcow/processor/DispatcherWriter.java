@@ -0,0 +1,548 @@
+package jcow.processor;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+
+import jcow.command.annotations.Command;
+import jcow.command.annotations.Controller;
+import jcow.command.annotations.FromContext;
+import jcow.command.annotations.FromFlag;
+import jcow.handler.CommandWrapper;
+import jcow.helpers.ArgumentKind;
+
+/**
+ * Writes the dispatcher source of a single command class.
+ * The dispatcher follows the same rules as the {@link CommandWrapper}, every class reachable through the
+ * controller fields gets a dispatch method which switches over the controller names and every controller
+ * name gets a method which picks the overload and calls it directly.
+ * The future results of controllers are only waited for by {@code invoke}, while {@code invokeAsync} passes them on.
+ * <br></br>
+ * The dispatcher is generated in the package of the command class, so everything it refers to has to be
+ * public or declared in that package. Otherwise the command is left to the {@link CommandWrapper}.
+ *
+ * @author KOWI2003
+ */
+final class DispatcherWriter {
+
+    private static final Set<String> PRIMITIVE_TYPES = Set.of("java.lang.String", "java.lang.Integer", "java.lang.Long", "java.lang.Short",
+        "java.lang.Byte", "java.lang.Double", "java.lang.Float", "java.lang.Boolean", "java.lang.Character");
+
+    private static final Set<String> AGGREGATE_TYPES = Set.of("java.util.List", "java.util.Collection", "java.lang.Iterable");
+    private static final Set<String> LAZY_TYPES = Set.of("java.util.function.Supplier", "jcow.utils.Lazy");
+
+    private final ProcessingEnvironment environment;
+    private final TypeElement type;
+    private final PackageElement dispatcherPackage;
+
+    private final StringBuilder methods = new StringBuilder();
+    // The names of the static fields holding the type parser of every type parsed by a parser, by the type
+    private final Map<String, String> parsers = new LinkedHashMap<>();
+    private final Map<TypeElement, Integer> nodes = new HashMap<>();
+    private final ArrayDeque<TypeElement> pending = new ArrayDeque<>();
+
+    DispatcherWriter(ProcessingEnvironment environment, TypeElement type) {
+        this.environment = environment;
+        this.type = type;
+        this.dispatcherPackage = environment.getElementUtils().getPackageOf(type);
+    }
+
+    /**
+     * Generates and writes the dispatcher source file
+     * @throws IOException if the source file can not be written
+     * @throws UnsupportedCommandException if the command uses something a dispatcher can not call directly
+     */
+    void write() throws IOException, UnsupportedCommandException {
+        var packageName = environment.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        var binaryName = environment.getElementUtils().getBinaryName(type).toString();
+        var simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + CommandWrapper.DISPATCHER_SUFFIX;
+
+        int root = getNode(type);
+        while(!pending.isEmpty()) {
+            var next = pending.poll();
+            writeNode(next, nodes.get(next));
+        }
+
+        var source = new StringBuilder();
+        if(!packageName.isEmpty())
+            source.append("package ").append(packageName).append(";\n\n");
+        source.append("import jcow.command.IContext;\n")
+            .append("import jcow.handler.types.TypeParser;\n")
+            .append("import jcow.handler.types.TypeParsers;\n")
+            .append("import jcow.helpers.ArgumentKind;\n")
+            .append("import jcow.helpers.CommandHelper;\n")
+            .append("import jcow.helpers.ParameterParseException;\n")
+            .append("import jcow.utils.ParameterReader;\n\n")
+            .append("/**\n * The generated dispatcher of {@link ").append(type.getQualifiedName()).append("}, do not edit.\n */\n")
+            .append("@javax.annotation.processing.Generated(\"").append(CommandProcessor.class.getName()).append("\")\n")
+            .append("@SuppressWarnings({\"unchecked\", \"rawtypes\", \"deprecation\"})\n")
+            .append("public final class ").append(simpleName).append(" implements jcow.command.ICommand {\n\n")
+            .append(writeParsers())
+            .append("    @Override\n")
+            .append("    public String invoke(IContext context) {\n")
+            .append("        var result = dispatch").append(root).append("(context, context.getParameterViews(), 0);\n")
+            .append("        if(result instanceof java.util.concurrent.CompletionStage<?> stage)\n")
+            .append("            result = CommandHelper.await(stage);\n")
+            .append("        return result(result);\n")
+            .append("    }\n\n")
+            .append("    @Override\n")
+            .append("    public java.util.concurrent.CompletableFuture<String> invokeAsync(IContext context) {\n")
+            .append("        Object result;\n")
+            .append("        try {\n")
+            .append("            result = dispatch").append(root).append("(context, context.getParameterViews(), 0);\n")
+            .append("        } catch (RuntimeException e) {\n")
+            .append("            return java.util.concurrent.CompletableFuture.failedFuture(e);\n")
+            .append("        }\n")
+            .append("        if(result instanceof java.util.concurrent.CompletionStage<?> stage)\n")
+            .append("            return stage.toCompletableFuture().thenApply(").append(simpleName).append("::result);\n")
+            .append("        return java.util.concurrent.CompletableFuture.completedFuture(result(result));\n")
+            .append("    }\n\n")
+            .append(writeAliases())
+            .append(writeSequential())
+            .append("    private static CharSequence[] arguments(IContext context, CharSequence[] path, int start) {\n")
+            .append("        var arguments = java.util.Arrays.copyOfRange(path, start, path.length);\n")
+            .append("        context.setParameterViews(arguments);\n")
+            .append("        return arguments;\n")
+            .append("    }\n\n")
+            .append("    private static String result(Object result) {\n")
+            .append("        return result == null ? \"\" : result.toString();\n")
+            .append("    }\n\n")
+            .append("    private static <T> T parse(TypeParser<T> parser, Class<T> type, IContext context, ParameterReader reader) {\n")
+            .append("        // No parser had been registered yet when the dispatcher was loaded\n")
+            .append("        if(parser == null)\n")
+            .append("            parser = TypeParsers.get(type);\n")
+            .append("        if(parser == null)\n")
+            .append("            throw new IllegalStateException(\"No type parser has been registered for \" + type.getName());\n")
+            .append("        return parser.parse(context, reader);\n")
+            .append("    }\n")
+            .append(methods)
+            .append("}\n");
+
+        var file = environment.getFiler().createSourceFile(packageName.isEmpty() ? simpleName : packageName + "." + simpleName, type);
+        try(var writer = file.openWriter()) {
+            writer.write(source.toString());
+        }
+    }
+
+    /**
+     * Writes the static fields holding the type parsers, which are resolved once when the dispatcher is loaded
+     * @return the source of the fields
+     */
+    private String writeParsers() {
+        var fields = new StringBuilder();
+        for (var parser : parsers.entrySet()) {
+            fields.append("    private static final TypeParser<").append(parser.getKey()).append("> ").append(parser.getValue())
+                .append(" = TypeParsers.get(").append(parser.getKey()).append(".class);\n");
+        }
+        return fields.append('\n').toString();
+    }
+
+    /**
+     * Writes the override of the aliases of the command when the {@link Command} annotation defines any
+     * @return the source of the override, or an empty string when the command has no aliases
+     */
+    private String writeAliases() {
+        var command = type.getAnnotation(Command.class);
+        if(command == null || command.alias().length == 0)
+            return "";
+
+        var aliases = new StringJoiner(", ");
+        for (var alias : command.alias())
+            aliases.add(environment.getElementUtils().getConstantExpression(alias));
+        return "    @Override\n"
+            + "    public java.util.Collection<String> getAliases() {\n"
+            + "        return java.util.List.of(" + aliases + ");\n"
+            + "    }\n\n";
+    }
+
+    /**
+     * Writes the override marking the command as sequential when the {@link Command} annotation does so
+     * @return the source of the override, or an empty string when the command is not sequential
+     */
+    private String writeSequential() {
+        var command = type.getAnnotation(Command.class);
+        if(command == null || !command.sequential())
+            return "";
+        return "    @Override\n"
+            + "    public boolean isSequential() {\n"
+            + "        return true;\n"
+            + "    }\n\n";
+    }
+
+    private int getNode(TypeElement node) throws UnsupportedCommandException {
+        var id = nodes.get(node);
+        if(id != null)
+            return id;
+
+        checkAccessible(node, node);
+        id = nodes.size();
+        nodes.put(node, id);
+        pending.add(node);
+        return id;
+    }
+
+    private void writeNode(TypeElement node, int id) throws UnsupportedCommandException {
+        var overloads = new LinkedHashMap<String, List<ExecutableElement>>();
+        var defaults = new ArrayList<ExecutableElement>();
+        var fields = new LinkedHashMap<String, TypeMirror>();
+        for (var member : node.getEnclosedElements()) {
+            var controller = member.getAnnotation(Controller.class);
+            if(controller == null)
+                continue;
+
+            var name = controller.value().isEmpty() ? member.getSimpleName().toString() : controller.value();
+            if(member.getKind() == ElementKind.METHOD) {
+                var method = (ExecutableElement) member;
+                if(!method.getModifiers().contains(Modifier.STATIC))
+                    throw new UnsupportedCommandException("the controller method " + method.getSimpleName() + " is not static", method);
+                checkAccessible(method, method);
+
+                overloads.computeIfAbsent(name, key -> new ArrayList<>()).add(method);
+                if(controller.isDefault())
+                    defaults.add(method);
+            }else if(member.getKind() == ElementKind.FIELD) {
+                fields.putIfAbsent(name, member.asType());
+            }
+        }
+
+        methods.append("\n    private static Object dispatch").append(id).append("(IContext context, CharSequence[] path, int index) {\n");
+        if(!overloads.isEmpty() || !fields.isEmpty()) {
+            methods.append("        if(index < path.length) {\n")
+                .append("            switch(path[index].toString()) {\n");
+
+            int controllerId = 0;
+            for (var name : overloads.keySet()) {
+                methods.append("                case ").append(literal(name)).append(": return invoke").append(id).append('_').append(controllerId++)
+                    .append("(context, arguments(context, path, index + 1));\n");
+            }
+            for (var field : fields.entrySet()) {
+                if(overloads.containsKey(field.getKey()))
+                    continue;
+                methods.append("                case ").append(literal(field.getKey())).append(": ");
+                if(field.getValue() instanceof DeclaredType declared && declared.asElement() instanceof TypeElement element)
+                    methods.append("return dispatch").append(getNode(element)).append("(context, path, index + 1);\n");
+                else
+                    methods.append("return \"Command not found\";\n");
+            }
+            methods.append("                default: break;\n")
+                .append("            }\n")
+                .append("        }\n");
+        }
+        if(defaults.isEmpty())
+            methods.append("        return \"Command not found\";\n");
+        else
+            methods.append("        return invoke").append(id).append("_default(context, arguments(context, path, index));\n");
+        methods.append("    }\n");
+
+        int controllerId = 0;
+        for (var group : overloads.entrySet())
+            writeOverloads(id + "_" + controllerId++, group.getKey(), group.getValue());
+        if(!defaults.isEmpty())
+            writeOverloads(id + "_default", defaults.get(0).getSimpleName().toString(), defaults);
+    }
+
+    private void writeOverloads(String id, String name, List<ExecutableElement> overloads) throws UnsupportedCommandException {
+        var sorted = new ArrayList<>(overloads);
+        sorted.sort(Comparator.comparing((ExecutableElement method) -> !isFixedArity(method))
+            .thenComparing(this::getSpecificity, java.util.Arrays::compare)
+            .thenComparing(method -> method.toString()));
+
+        methods.append("\n    private static Object invoke").append(id).append("(IContext context, CharSequence[] arguments) {\n")
+            .append("        var reader = new ParameterReader(context);\n");
+        for (var method : sorted) {
+            var parameters = method.getParameters();
+            methods.append("        if(arguments.length ").append(isFixedArity(method) ? "==" : ">=").append(' ').append(getMinArity(method));
+            if(sorted.size() > 1) {
+                var positional = getPositionalTypes(method);
+                for (int i = 0; i < positional.size(); i++) {
+                    var parameter = positional.get(i);
+                    if(!isPrimitive(parameter))
+                        break;
+                    methods.append("\n            && ArgumentKind.canParse(arguments[").append(i).append("], ").append(classLiteral(parameter)).append(')');
+                }
+            }
+            methods.append(") {\n");
+
+            var call = new StringBuilder(((TypeElement) method.getEnclosingElement()).getQualifiedName()).append('.').append(method.getSimpleName()).append('(');
+            for (int i = 0; i < parameters.size(); i++) {
+                methods.append("            var p").append(i).append(" = ").append(readCall(parameters.get(i))).append(";\n");
+                call.append(i == 0 ? "" : ", ").append('p').append(i);
+            }
+            call.append(')');
+
+            methods.append("            try {\n");
+            if(method.getReturnType().getKind() == TypeKind.VOID)
+                methods.append("                ").append(call).append(";\n                return null;\n");
+            else
+                methods.append("                return ").append(call).append(";\n");
+            // Unchecked failures are passed on as they are and checked failures are wrapped, the same as the CommandWrapper does
+            methods.append("            } catch (RuntimeException e) {\n")
+                .append("                throw e;\n")
+                .append("            } catch (Exception e) {\n")
+                .append("                throw new IllegalStateException(").append(literal("The controller " + method.getEnclosingElement() + "." + method + " failed")).append(", e);\n")
+                .append("            }\n")
+                .append("        }\n");
+        }
+        methods.append("        throw new ParameterParseException(\"Failed to parse command parameters as no overload of [")
+            .append(literal(name), 1, literal(name).length() - 1)
+            .append("] accepts the arguments at index %index%!\", CommandHelper.toStrings(arguments), 0);\n")
+            .append("    }\n");
+    }
+
+    /**
+     * Checks whether the dispatcher can refer to the element, which requires the element and all of the classes
+     * enclosing it to be public or to be declared in the package of the dispatcher without being private
+     * @param element the class or method to check
+     * @param cause the element to report when the element can not be accessed
+     * @throws UnsupportedCommandException if the dispatcher can not access the element
+     */
+    private void checkAccessible(Element element, Element cause) throws UnsupportedCommandException {
+        for (var current = element; current instanceof TypeElement || current instanceof ExecutableElement; current = current.getEnclosingElement()) {
+            var modifiers = current.getModifiers();
+            if(modifiers.contains(Modifier.PUBLIC))
+                continue;
+            if(modifiers.contains(Modifier.PRIVATE))
+                throw new UnsupportedCommandException("the " + describe(current) + " " + current.getSimpleName() + " is private", cause);
+            if(!environment.getElementUtils().getPackageOf(current).equals(dispatcherPackage))
+                throw new UnsupportedCommandException("the " + describe(current) + " " + current.getSimpleName() + " is not public", cause);
+        }
+    }
+
+    /**
+     * Checks whether the dispatcher can refer to the type and the types of its type arguments
+     * @param type the type to check
+     * @param cause the element to report when the type can not be accessed
+     * @throws UnsupportedCommandException if the dispatcher can not access the type
+     */
+    private void checkAccessible(TypeMirror type, Element cause) throws UnsupportedCommandException {
+        if(type instanceof ArrayType array) {
+            checkAccessible(array.getComponentType(), cause);
+        }else if(type instanceof WildcardType wildcard) {
+            if(wildcard.getExtendsBound() != null)
+                checkAccessible(wildcard.getExtendsBound(), cause);
+        }else if(type instanceof DeclaredType declared) {
+            checkAccessible(declared.asElement(), cause);
+            for (var argument : declared.getTypeArguments())
+                checkAccessible(argument, cause);
+        }
+    }
+
+    private static String describe(Element element) {
+        return element.getKind() == ElementKind.METHOD ? "controller method" : "class";
+    }
+
+    /**
+     * Gets the types of the parameters which are bound from the positional arguments,
+     * leaving out the parameters bound from a flag or the context
+     * @param method the controller method
+     * @return the types of the positional parameters
+     */
+    private List<TypeMirror> getPositionalTypes(ExecutableElement method) {
+        var types = new ArrayList<TypeMirror>();
+        for (var parameter : method.getParameters()) {
+            if(parameter.getAnnotation(FromFlag.class) == null && parameter.getAnnotation(FromContext.class) == null)
+                types.add(getBoundType(parameter.asType()));
+        }
+        return types;
+    }
+
+    private boolean isLazy(TypeMirror type) {
+        return LAZY_TYPES.contains(environment.getTypeUtils().erasure(type).toString());
+    }
+
+    /**
+     * Gets the type the arguments of a parameter are parsed as, which is the type of the value for lazy parameters
+     * @param type the type of the parameter
+     * @return the type the arguments are parsed as
+     */
+    private TypeMirror getBoundType(TypeMirror type) {
+        if(!isLazy(type))
+            return type;
+        if(type instanceof DeclaredType declared && declared.getTypeArguments().size() == 1) {
+            var argument = declared.getTypeArguments().get(0);
+            if(argument instanceof WildcardType wildcard)
+                argument = wildcard.getExtendsBound();
+            if(argument != null && !environment.getTypeUtils().erasure(argument).toString().equals("java.lang.Object"))
+                return argument;
+        }
+        return environment.getElementUtils().getTypeElement("java.lang.String").asType();
+    }
+
+    private boolean isFixedArity(ExecutableElement method) {
+        for (var type : getPositionalTypes(method)) {
+            if(!isPrimitive(type))
+                return false;
+        }
+        return true;
+    }
+
+    private int getMinArity(ExecutableElement method) {
+        int arity = 0;
+        for (var type : getPositionalTypes(method)) {
+            if(!isAggregate(type))
+                arity++;
+        }
+        return arity;
+    }
+
+    /**
+     * Checks whether a parameter of the type reads all of the remaining arguments, the same as the
+     * arrays and lists of the {@link CommandWrapper}
+     * @param type the type of the parameter
+     * @return whether the parameter takes the remaining arguments
+     */
+    private boolean isAggregate(TypeMirror type) {
+        return type.getKind() == TypeKind.ARRAY || AGGREGATE_TYPES.contains(environment.getTypeUtils().erasure(type).toString());
+    }
+
+    private int[] getSpecificity(ExecutableElement method) {
+        return getPositionalTypes(method).stream()
+            .mapToInt(type -> ArgumentKind.getSpecificity(getAcceptedKinds(type)))
+            .toArray();
+    }
+
+    private boolean isPrimitive(TypeMirror type) {
+        return type.getKind().isPrimitive() || PRIMITIVE_TYPES.contains(environment.getTypeUtils().erasure(type).toString());
+    }
+
+    private int getAcceptedKinds(TypeMirror type) {
+        var kind = type.getKind();
+        if(!kind.isPrimitive()) {
+            var name = environment.getTypeUtils().erasure(type).toString();
+            if(!PRIMITIVE_TYPES.contains(name) || name.equals("java.lang.String"))
+                return ArgumentKind.TEXT;
+            kind = environment.getTypeUtils().unboxedType(type).getKind();
+        }
+        return switch (kind) {
+            case INT, LONG, SHORT, BYTE -> ArgumentKind.WHOLE;
+            case DOUBLE, FLOAT -> ArgumentKind.WHOLE | ArgumentKind.DECIMAL;
+            case BOOLEAN -> ArgumentKind.BOOLEAN;
+            case CHAR -> ArgumentKind.CHARACTER;
+            default -> ArgumentKind.TEXT;
+        };
+    }
+
+    /**
+     * Gets the expression binding the parameter, the same as the binders of the {@link CommandWrapper}
+     * @param parameter the parameter to bind
+     * @return the expression getting the value of the parameter
+     */
+    private String readCall(VariableElement parameter) throws UnsupportedCommandException {
+        var type = parameter.asType();
+        checkAccessible(type, parameter);
+        if(parameter.getAnnotation(FromContext.class) != null) {
+            var erased = environment.getTypeUtils().erasure(type).toString();
+            return "(context instanceof " + erased + " ? (" + erased + ") context : null)";
+        }
+        var flag = parameter.getAnnotation(FromFlag.class);
+        if(flag != null)
+            return "reader.readFlag(" + literal(flag.value()) + ", " + classLiteral(type) + ")";
+        if(isLazy(type)) {
+            var valueType = getBoundType(type);
+            if(isAggregate(valueType))
+                throw new UnsupportedCommandException("the lazy parameter " + parameter.getSimpleName() + " takes multiple arguments", parameter);
+            return "reader.readLazy(" + classLiteral(valueType) + ")";
+        }
+        return readCall(type);
+    }
+
+    /**
+     * Gets the call reading the argument of the parameter type, which reads primitives through
+     * their dedicated reader and leaves other types to their type parser
+     * @param type the type of the parameter
+     * @return the expression reading the argument
+     */
+    private String readCall(TypeMirror type) {
+        if(type instanceof ArrayType array) {
+            var component = array.getComponentType();
+            return switch (component.getKind()) {
+                case INT -> "reader.readIntArray()";
+                case LONG -> "reader.readLongArray()";
+                case DOUBLE -> "reader.readDoubleArray()";
+                default -> "(" + environment.getTypeUtils().erasure(type) + ") reader.readArray(" + classLiteral(component) + ")";
+            };
+        }
+        if(isAggregate(type))
+            return "reader.readList(" + getElementType(type) + ".class)";
+
+        var kind = type.getKind();
+        if(!kind.isPrimitive()) {
+            var name = environment.getTypeUtils().erasure(type).toString();
+            if(name.equals("java.lang.String"))
+                return "reader.readString()";
+            if(!PRIMITIVE_TYPES.contains(name))
+                return parseCall(type);
+            kind = environment.getTypeUtils().unboxedType(type).getKind();
+        }
+        return switch (kind) {
+            case INT -> "reader.readInt()";
+            case LONG -> "reader.readLong()";
+            case SHORT -> "reader.readShort()";
+            case BYTE -> "reader.readByte()";
+            case DOUBLE -> "reader.readDouble()";
+            case FLOAT -> "reader.readFloat()";
+            case BOOLEAN -> "reader.readBoolean()";
+            case CHAR -> "reader.readChar()";
+            default -> parseCall(type);
+        };
+    }
+
+    /**
+     * Gets the call parsing the argument with the type parser of the type, which is kept in a static field
+     * @param type the type of the parameter
+     * @return the expression parsing the argument
+     */
+    private String parseCall(TypeMirror type) {
+        var name = environment.getTypeUtils().erasure(type).toString();
+        var field = parsers.computeIfAbsent(name, key -> "PARSER_" + parsers.size());
+        return "parse(" + field + ", " + name + ".class, context, reader)";
+    }
+
+    /**
+     * Gets the type of the elements of a list type, where the elements of a raw list are strings
+     * @param type the list type
+     * @return the erased name of the element type
+     */
+    private String getElementType(TypeMirror type) {
+        if(type instanceof DeclaredType declared && declared.getTypeArguments().size() == 1) {
+            var element = declared.getTypeArguments().get(0);
+            if(element instanceof WildcardType wildcard)
+                element = wildcard.getExtendsBound();
+            if(element != null) {
+                var name = environment.getTypeUtils().erasure(element).toString();
+                if(!name.equals("java.lang.Object"))
+                    return name;
+            }
+        }
+        return "java.lang.String";
+    }
+
+    private String classLiteral(TypeMirror type) {
+        return environment.getTypeUtils().erasure(type).toString() + ".class";
+    }
+
+    private String literal(String value) {
+        return environment.getElementUtils().getConstantExpression(value);
+    }
+}
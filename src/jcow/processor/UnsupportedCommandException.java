@@ -0,0 +1,35 @@
+package jcow.processor;
+
+import javax.lang.model.element.Element;
+
+/**
+ * An exception thrown when no dispatcher can be generated for a command class,
+ * in which case the command is left to the runtime {@link jcow.handler.CommandWrapper CommandWrapper}
+ *
+ * @author KOWI2003
+ */
+class UnsupportedCommandException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient Element element;
+
+    /** Constructs a new UnsupportedCommandException with the specified detail message.
+     *
+     * @param   message   the detail message. The detail message is saved for
+     *          later retrieval by the {@link #getMessage()} method.
+     * @param element the element which can not be supported
+     */
+    UnsupportedCommandException(String message, Element element) {
+        super(message);
+        this.element = element;
+    }
+
+    /**
+     * Gets the element which caused the command to be unsupported
+     * @return the unsupported element
+     */
+    Element getElement() {
+        return element;
+    }
+}
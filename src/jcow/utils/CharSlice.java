@@ -0,0 +1,122 @@
+package jcow.utils;
+
+/**
+ * A read only view of a section of another character sequence, used to pass around parts of
+ * a command line without copying the characters into a new string.
+ * A string is only constructed when {@link CharSlice#toString() toString} is called.
+ *
+ * @author KOWI2003
+ */
+public final class CharSlice implements CharSequence {
+
+    private final CharSequence source;
+    private final int offset;
+    private final int length;
+
+    private CharSlice(CharSequence source, int offset, int length) {
+        this.source = source;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Creates a view of the whole sequence
+     * @param source the sequence to view [not null]
+     * @return the view of the sequence
+     */
+    public static CharSlice of(CharSequence source) {
+        return of(source, 0, source.length());
+    }
+
+    /**
+     * Creates a view of a section of the sequence
+     * @param source the sequence to view [not null]
+     * @param start the start index of the section, inclusive
+     * @param end the end index of the section, exclusive
+     * @return the view of the section
+     * @throws IndexOutOfBoundsException when the section does not fit within the source
+     */
+    public static CharSlice of(CharSequence source, int start, int end) {
+        if(start < 0 || end > source.length() || start > end)
+            throw new IndexOutOfBoundsException("Section [" + start + ", " + end + ") is out of bounds for length " + source.length());
+        return new CharSlice(source, start, end - start);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if(index < 0 || index >= length)
+            throw new IndexOutOfBoundsException(index);
+        return source.charAt(offset + index);
+    }
+
+    @Override
+    public CharSlice subSequence(int start, int end) {
+        if(start < 0 || end > length || start > end)
+            throw new IndexOutOfBoundsException("Section [" + start + ", " + end + ") is out of bounds for length " + length);
+        return new CharSlice(source, offset + start, end - start);
+    }
+
+    /**
+     * Gets the index of this view in the source sequence
+     * @return the offset of the view
+     */
+    public int offset() {
+        return offset;
+    }
+
+    /**
+     * Checks whether the characters of this view are the same as the characters of the given sequence
+     * @param other the sequence to compare with
+     * @return whether the content is equal
+     */
+    public boolean contentEquals(CharSequence other) {
+        if(other == null || other.length() != length)
+            return false;
+        for (int i = 0; i < length; i++) {
+            if(source.charAt(offset + i) != other.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether this view starts with the given prefix
+     * @param prefix the prefix to check for
+     * @return whether this view starts with the prefix
+     */
+    public boolean startsWith(CharSequence prefix) {
+        if(prefix.length() > length)
+            return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if(source.charAt(offset + i) != prefix.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof CharSlice slice && contentEquals(slice);
+    }
+
+    @Override
+    public int hashCode() {
+        // Same hash as the string of the content would have
+        int hash = 0;
+        for (int i = 0; i < length; i++)
+            hash = 31 * hash + source.charAt(offset + i);
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        if(source instanceof String string)
+            return string.substring(offset, offset + length);
+        return source.subSequence(offset, offset + length).toString();
+    }
+}
@@ -0,0 +1,64 @@
+package jcow.utils;
+
+import java.util.function.Supplier;
+
+/**
+ * A value which is only computed when it is first read, after which the same value is returned.
+ * Used for controller parameters of which the argument should only be parsed when the controller
+ * actually reads it. The value is computed at most once, also when it is read from multiple threads.
+ *
+ * @author KOWI2003
+ */
+public final class Lazy<T> implements Supplier<T> {
+
+    private Supplier<? extends T> supplier;
+    private volatile boolean evaluated;
+    private T value;
+
+    private Lazy(Supplier<? extends T> supplier) {
+        this.supplier = supplier;
+    }
+
+    /**
+     * Creates a lazy value computed by the supplier
+     * @param <T> the type of the value
+     * @param supplier the supplier computing the value
+     * @return the lazy value
+     */
+    public static <T> Lazy<T> of(Supplier<? extends T> supplier) {
+        return new Lazy<>(supplier);
+    }
+
+    /**
+     * Gets the value, computing it if it has not been read before.
+     * When computing the value fails, the exception is thrown and the value is computed again on the next read
+     * @return the value
+     */
+    @Override
+    public T get() {
+        if(!evaluated) {
+            synchronized (this) {
+                if(!evaluated) {
+                    value = supplier.get();
+                    evaluated = true;
+                    // The supplier holds on to the arguments, which are no longer needed
+                    supplier = null;
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Checks whether the value has been computed
+     * @return whether the value has been computed
+     */
+    public boolean isEvaluated() {
+        return evaluated;
+    }
+
+    @Override
+    public String toString() {
+        return evaluated ? String.valueOf(value) : "Lazy[not evaluated]";
+    }
+}
@@ -0,0 +1,231 @@
+package jcow.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable index of values by name, stored as a trie of which the children of a node are kept in a sorted array.
+ * Names are looked up character by character from any {@link CharSequence}, so a view of a command line
+ * can be looked up without constructing a string.
+ * <br></br>
+ * Besides exact lookups, a name may be abbreviated to any prefix which leads to a single value.
+ * Multiple names of the same value, such as a name and its aliases, don't make a prefix ambiguous.
+ * <br></br>
+ * Adding or removing a name creates a new trie which only copies the nodes along the path of the name
+ * and shares all other nodes, so a trie can be published to other threads and read without locking.
+ *
+ * @author KOWI2003
+ */
+public final class NameTrie<V> {
+
+    private static final char[] NO_LABELS = new char[0];
+    private static final Node<?>[] NO_CHILDREN = new Node<?>[0];
+    // Marks a node which leads to multiple different values
+    private static final Object AMBIGUOUS = new Object();
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final NameTrie<?> EMPTY = new NameTrie<>(new Node(NO_LABELS, NO_CHILDREN, null), 0);
+
+    private final Node<V> root;
+    private final int size;
+
+    private NameTrie(Node<V> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Gets the trie without any names
+     * @param <V> the type of the values
+     * @return the empty trie
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> NameTrie<V> empty() {
+        return (NameTrie<V>) EMPTY;
+    }
+
+    /**
+     * Creates a trie which also contains the value under the name, unless the name is already in use
+     * @param name the name of the value
+     * @param value the value to add [not null]
+     * @return the trie with the name, or this trie if the name is already in use
+     */
+    public NameTrie<V> with(CharSequence name, V value) {
+        if(value == null)
+            throw new NullPointerException("The value of '" + name + "' is null");
+        if(contains(name))
+            return this;
+        return new NameTrie<>(insert(root, name, 0, value), size + 1);
+    }
+
+    /**
+     * Creates a trie without the name
+     * @param name the name to remove
+     * @return the trie without the name, or this trie if the name is not in use
+     */
+    public NameTrie<V> without(CharSequence name) {
+        if(!contains(name))
+            return this;
+        var newRoot = remove(root, name, 0);
+        return newRoot == null ? empty() : new NameTrie<>(newRoot, size - 1);
+    }
+
+    /**
+     * Gets the value with exactly the given name
+     * @param name the name of the value
+     * @return the value or null if no value has the name
+     */
+    public V get(CharSequence name) {
+        var node = find(name);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Gets the value with the given name, or else the only value of which a name starts with the given name.
+     * An empty name is not a prefix of any name, so it only matches a value with exactly the empty name
+     * @param name the name, or a prefix of the name, of the value
+     * @return the value or null if no value, or more than one value, matches the name
+     */
+    @SuppressWarnings("unchecked")
+    public V getByPrefix(CharSequence name) {
+        if(name.length() == 0)
+            return get(name);
+        var node = find(name);
+        if(node == null)
+            return null;
+        if(node.value != null)
+            return node.value;
+        return node.reachable == AMBIGUOUS ? null : (V) node.reachable;
+    }
+
+    /**
+     * Whether a value has exactly the given name
+     * @param name the name to check
+     * @return whether the name is in use
+     */
+    public boolean contains(CharSequence name) {
+        return get(name) != null;
+    }
+
+    /**
+     * Gets all of the names in the trie in their sorted order
+     * @return a new list of the names
+     */
+    public List<String> names() {
+        var names = new ArrayList<String>(size);
+        collectNames(root, new StringBuilder(), names);
+        return names;
+    }
+
+    /**
+     * Gets the amount of names in the trie
+     * @return the amount of names
+     */
+    public int size() {
+        return size;
+    }
+
+    private Node<V> find(CharSequence name) {
+        var node = root;
+        for (int i = 0; i < name.length() && node != null; i++)
+            node = node.getChild(name.charAt(i));
+        return node;
+    }
+
+    private static <V> Node<V> insert(Node<V> node, CharSequence name, int index, V value) {
+        if(index == name.length())
+            return new Node<>(node.labels, node.children, value);
+
+        var label = name.charAt(index);
+        var child = node.getChild(label);
+        if(child == null)
+            child = NameTrie.<V>empty().root;
+        return node.withChild(label, insert(child, name, index + 1, value));
+    }
+
+    private static <V> Node<V> remove(Node<V> node, CharSequence name, int index) {
+        Node<V> result;
+        if(index == name.length()) {
+            result = new Node<>(node.labels, node.children, null);
+        }else {
+            var label = name.charAt(index);
+            result = node.withChild(label, remove(node.getChild(label), name, index + 1));
+        }
+        // Nodes leading nowhere anymore are removed
+        return result.value == null && result.labels.length == 0 ? null : result;
+    }
+
+    private static <V> void collectNames(Node<V> node, StringBuilder prefix, List<String> names) {
+        if(node.value != null)
+            names.add(prefix.toString());
+        for (int i = 0; i < node.labels.length; i++) {
+            prefix.append(node.labels[i]);
+            collectNames(node.children[i], prefix, names);
+            prefix.setLength(prefix.length() - 1);
+        }
+    }
+
+    private static final class Node<V> {
+        private final char[] labels;
+        private final Node<V>[] children;
+        private final V value;
+        // The single value reachable from this node, or AMBIGUOUS when there are multiple
+        private final Object reachable;
+
+        private Node(char[] labels, Node<V>[] children, V value) {
+            this.labels = labels;
+            this.children = children;
+            this.value = value;
+
+            Object reachable = value;
+            for (var child : children) {
+                if(reachable == null)
+                    reachable = child.reachable;
+                else if(reachable != child.reachable)
+                    reachable = AMBIGUOUS;
+            }
+            this.reachable = reachable;
+        }
+
+        private Node<V> getChild(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index < 0 ? null : children[index];
+        }
+
+        /**
+         * Creates a copy of the node with the child of the label replaced, added or removed when the child is null
+         */
+        @SuppressWarnings("unchecked")
+        private Node<V> withChild(char label, Node<V> child) {
+            int index = Arrays.binarySearch(labels, label);
+            if(index >= 0) {
+                if(child != null) {
+                    var newChildren = children.clone();
+                    newChildren[index] = child;
+                    return new Node<>(labels, newChildren, value);
+                }
+
+                var newLabels = new char[labels.length - 1];
+                var newChildren = (Node<V>[]) new Node<?>[children.length - 1];
+                System.arraycopy(labels, 0, newLabels, 0, index);
+                System.arraycopy(labels, index + 1, newLabels, index, newLabels.length - index);
+                System.arraycopy(children, 0, newChildren, 0, index);
+                System.arraycopy(children, index + 1, newChildren, index, newChildren.length - index);
+                return new Node<>(newLabels, newChildren, value);
+            }
+            if(child == null)
+                return this;
+
+            // Inserts the new child at its sorted position
+            int insert = -index - 1;
+            var newLabels = new char[labels.length + 1];
+            var newChildren = Arrays.copyOf(children, children.length + 1);
+            System.arraycopy(labels, 0, newLabels, 0, insert);
+            System.arraycopy(labels, insert, newLabels, insert + 1, labels.length - insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+            newLabels[insert] = label;
+            newChildren[insert] = child;
+            return new Node<>(newLabels, newChildren, value);
+        }
+    }
+}
@@ -1,17 +1,32 @@
 package jcow.utils;
 
+import static jcow.helpers.ReflectionHelper.isNumber;
 import static jcow.helpers.ReflectionHelper.isPrimitive;
+import static jcow.helpers.ReflectionHelper.parseBoolean;
+import static jcow.helpers.ReflectionHelper.parseCharacter;
+import static jcow.helpers.ReflectionHelper.getDefaultValue;
+import static jcow.helpers.ReflectionHelper.parseNumber;
 import static jcow.helpers.ReflectionHelper.parsePrimitive;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 import jcow.command.IContext;
+import jcow.handler.types.TypeParser;
+import jcow.handler.types.TypeParsers;
 import jcow.helpers.CommandHelper;
+import jcow.helpers.NumberParser;
+import jcow.helpers.ParameterParseException;
 
 public class ParameterReader {
+
+    private static final Annotation[] NO_ANNOTATIONS = {};
     
-    private final String[] parameters;
+    private final CharSequence[] parameters;
     private final Map<String, String> optionals;
 
     private final IContext context;
@@ -19,9 +34,18 @@ public class ParameterReader {
     private int pointer = 0;
 
     public ParameterReader(IContext context) {
+        this(context, context.getParameterViews());
+    }
+
+    /**
+     * Creates a reader of the given parameters, which uses the flags of the context
+     * @param context the context of the command
+     * @param parameters the parameters to read
+     */
+    public ParameterReader(IContext context, CharSequence[] parameters) {
         this.context = context;
         this.optionals = context.getFlags();
-        this.parameters = context.getParameters();
+        this.parameters = parameters;
     }
 
     /**
@@ -37,18 +61,346 @@ public class ParameterReader {
      * @return The next parameter
      */
     public String readString() {
+        return parameters[pointer++].toString();
+    }
+
+    /**
+     * Reads the next parameter from the buffer as a view of the command line, 
+     * without constructing a string for it
+     * @return The next parameter
+     */
+    public CharSequence readView() {
         return parameters[pointer++];
     }
 
+    /**
+     * Reads all of the remaining parameters from the buffer as views of the command line
+     * @return the remaining parameters
+     */
+    public CharSequence[] readRemainingViews() {
+        var result = Arrays.copyOfRange(parameters, pointer, parameters.length);
+        pointer = parameters.length;
+        return result;
+    }
+
+    /**
+     * Reads the next parameter without parsing it, which is parsed to the specified type
+     * when the value of the returned {@link Lazy} is read
+     * @param <T> the type of the parameter
+     * @param type the type of the parameter
+     * @return the lazily parsed parameter
+     */
+    public <T> Lazy<T> readLazy(Class<T> type) {
+        var arguments = new CharSequence[] { readView() };
+        return Lazy.of(() -> new ParameterReader(context, arguments).read(type, NO_ANNOTATIONS));
+    }
+
+    /**
+     * Reads the next parameter from the buffer as an int
+     * @return the parsed int
+     * @throws ParameterParseException if the parameter is not a valid int
+     */
+    public int readInt() {
+        var view = readView();
+        try {
+            return NumberParser.parseInt(view);
+        } catch (NumberFormatException e) {
+            throw invalidParameter(e);
+        }
+    }
+
+    /**
+     * Reads the next parameter from the buffer as a long
+     * @return the parsed long
+     * @throws ParameterParseException if the parameter is not a valid long
+     */
+    public long readLong() {
+        var view = readView();
+        try {
+            return NumberParser.parseLong(view);
+        } catch (NumberFormatException e) {
+            throw invalidParameter(e);
+        }
+    }
+
+    /**
+     * Reads the next parameter from the buffer as a short
+     * @return the parsed short
+     * @throws ParameterParseException if the parameter is not a valid short
+     */
+    public short readShort() {
+        var view = readView();
+        try {
+            return NumberParser.parseShort(view);
+        } catch (NumberFormatException e) {
+            throw invalidParameter(e);
+        }
+    }
+
+    /**
+     * Reads the next parameter from the buffer as a byte
+     * @return the parsed byte
+     * @throws ParameterParseException if the parameter is not a valid byte
+     */
+    public byte readByte() {
+        var view = readView();
+        try {
+            return NumberParser.parseByte(view);
+        } catch (NumberFormatException e) {
+            throw invalidParameter(e);
+        }
+    }
+
+    /**
+     * Reads the next parameter from the buffer as a double
+     * @return the parsed double
+     * @throws ParameterParseException if the parameter is not a valid double
+     */
+    public double readDouble() {
+        var view = readView();
+        try {
+            return NumberParser.parseDouble(view);
+        } catch (NumberFormatException e) {
+            throw invalidParameter(e);
+        }
+    }
+
+    /**
+     * Reads the next parameter from the buffer as a float
+     * @return the parsed float
+     * @throws ParameterParseException if the parameter is not a valid float
+     */
+    public float readFloat() {
+        var view = readView();
+        try {
+            return NumberParser.parseFloat(view);
+        } catch (NumberFormatException e) {
+            throw invalidParameter(e);
+        }
+    }
+
+    /**
+     * Reads the next parameter from the buffer as a boolean, which is true only if it equals "true" ignoring case
+     * @return the parsed boolean
+     */
+    public boolean readBoolean() {
+        return parseBoolean(readView());
+    }
+
+    /**
+     * Reads the next parameter from the buffer as a character, being the first character of the parameter
+     * @return the parsed character
+     * @throws ParameterParseException if the parameter is empty
+     */
+    public char readChar() {
+        var view = readView();
+        try {
+            return parseCharacter(view);
+        } catch (IllegalArgumentException e) {
+            throw invalidParameter(e);
+        }
+    }
+
+    /**
+     * Reads all of the remaining parameters as ints, where a parameter may also contain
+     * multiple comma separated ints like "1,2,3". The ints are parsed straight into the array
+     * @return the parsed ints
+     * @throws ParameterParseException if one of the elements is not a valid int
+     */
+    public int[] readIntArray() {
+        var result = new int[countElements()];
+        forEachElement((token, start, end, index) -> result[index] = NumberParser.parseInt(token, start, end));
+        return result;
+    }
+
+    /**
+     * Reads all of the remaining parameters as longs, where a parameter may also contain
+     * multiple comma separated longs like "1,2,3". The longs are parsed straight into the array
+     * @return the parsed longs
+     * @throws ParameterParseException if one of the elements is not a valid long
+     */
+    public long[] readLongArray() {
+        var result = new long[countElements()];
+        forEachElement((token, start, end, index) -> result[index] = NumberParser.parseLong(token, start, end));
+        return result;
+    }
+
+    /**
+     * Reads all of the remaining parameters as doubles, where a parameter may also contain
+     * multiple comma separated doubles like "1.5,2,3". The doubles are parsed straight into the array
+     * @return the parsed doubles
+     * @throws ParameterParseException if one of the elements is not a valid double
+     */
+    public double[] readDoubleArray() {
+        var result = new double[countElements()];
+        forEachElement((token, start, end, index) -> result[index] = NumberParser.parseDouble(token, start, end));
+        return result;
+    }
+
+    /**
+     * Reads all of the remaining parameters as an array of the component type.
+     * Numbers may also be given comma separated in a single parameter, like "1,2,3"
+     * @param componentType the type of the elements
+     * @return the array of the elements, of which the type is an array of the component type
+     * @throws ParameterParseException if one of the elements can not be parsed to the component type
+     * @throws IllegalArgumentException if no type parser has been registered for the component type
+     */
+    public Object readArray(Class<?> componentType) {
+        if(componentType == int.class)
+            return readIntArray();
+        if(componentType == long.class)
+            return readLongArray();
+        if(componentType == double.class)
+            return readDoubleArray();
+
+        var elements = readList(componentType);
+        var result = Array.newInstance(componentType, elements.size());
+        for (int i = 0; i < elements.size(); i++)
+            Array.set(result, i, elements.get(i));
+        return result;
+    }
+
+    /**
+     * Reads all of the remaining parameters as a list of the element type.
+     * Numbers may also be given comma separated in a single parameter, like "1,2,3"
+     * @param <T> the type of the elements
+     * @param elementType the type of the elements
+     * @return the list of the elements
+     * @throws ParameterParseException if one of the elements can not be parsed to the element type
+     * @throws IllegalArgumentException if no type parser has been registered for the element type
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> readList(Class<T> elementType) {
+        if(isNumber(elementType)) {
+            var result = new ArrayList<T>(countElements());
+            forEachElement((token, start, end, index) -> result.add((T) parseNumber(CharSlice.of(token, start, end), elementType)));
+            return result;
+        }
+
+        var parser = TypeParsers.get(elementType);
+        if(parser == null)
+            throw new IllegalArgumentException("No type parser has been registered for " + elementType.getName());
+        return readList(parser);
+    }
+
+    /**
+     * Reads all of the remaining parameters as a list of the elements read by the parser
+     * @param <T> the type of the elements
+     * @param elementParser the parser of the elements
+     * @return the list of the elements
+     * @throws ParameterParseException if one of the elements can not be parsed
+     */
+    public <T> List<T> readList(TypeParser<? extends T> elementParser) {
+        var result = new ArrayList<T>(parameters.length - pointer);
+        while(hasNext()) {
+            int position = pointer;
+            result.add(elementParser.parse(context, this));
+            // A type parser which doesn't read anything would otherwise never finish
+            if(pointer == position)
+                break;
+        }
+        return result;
+    }
+
+    /**
+     * Counts the comma separated elements in the remaining parameters
+     * @return the amount of elements
+     */
+    private int countElements() {
+        int count = 0;
+        for (int i = pointer; i < parameters.length; i++) {
+            var token = parameters[i];
+            count++;
+            for (int j = 0; j < token.length(); j++) {
+                if(token.charAt(j) == ',')
+                    count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reads all of the remaining parameters, passing each of their comma separated elements to the consumer
+     * @param consumer the consumer of the elements
+     * @throws ParameterParseException if the consumer fails to parse an element
+     */
+    private void forEachElement(ElementConsumer consumer) {
+        int index = 0;
+        while(hasNext()) {
+            var token = readView();
+            int start = 0;
+            for (int i = 0; i <= token.length(); i++) {
+                if(i < token.length() && token.charAt(i) != ',')
+                    continue;
+                try {
+                    consumer.accept(token, start, i, index++);
+                } catch (NumberFormatException e) {
+                    throw invalidParameter(e);
+                }
+                start = i + 1;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ElementConsumer {
+        void accept(CharSequence token, int start, int end, int index);
+    }
+
     /**
      * Reads the next parameter from the buffer and parses it to the specified type if possible.
+     * Primitives and their wrappers are read through their dedicated reader, like {@link #readInt()},
+     * other types through their {@link jcow.handler.types.TypeParsers registered} type parser.
+     * <br></br>
+     * <b>Note</b>: controllers don't use this method, their parameters are bound through the readers
+     * chosen when the command is wrapped
      * @param <T> the type of the parameter to read
      * @param type the type of the parameter to read
      * @return the parameter read from the buffer
+     * @throws ParameterParseException if the parameter can not be parsed to the type
      */
     @SuppressWarnings("unchecked")
     public <T> T read(Class<T> type, Annotation[] annotations) {
-        return isPrimitive(type) ? (T) parsePrimitive(readString(), type) : readObject(type, annotations);
+        return isPrimitive(type) ? (T) readPrimitive(type) : readObject(type, annotations);
+    }
+
+    private Object readPrimitive(Class<?> type) {
+        if(type == int.class || type == Integer.class)
+            return readInt();
+        if(type == String.class)
+            return readString();
+        if(type == long.class || type == Long.class)
+            return readLong();
+        if(type == double.class || type == Double.class)
+            return readDouble();
+        if(type == boolean.class || type == Boolean.class)
+            return readBoolean();
+        if(type == float.class || type == Float.class)
+            return readFloat();
+        if(type == char.class || type == Character.class)
+            return readChar();
+        if(type == short.class || type == Short.class)
+            return readShort();
+        if(type == byte.class || type == Byte.class)
+            return readByte();
+        return parsePrimitive(readView(), type);
+    }
+
+    /**
+     * Creates the exception for the parameter which has just been read, for type parsers to report
+     * a parameter they can not parse
+     * @param reason the reason the parameter is invalid, completing the sentence "Failed to parse command parameters as"
+     * @return the exception pointing at the parameter
+     */
+    public ParameterParseException invalidParameter(String reason) {
+        return new ParameterParseException("Failed to parse command parameters as " + reason,
+            CommandHelper.toStrings(parameters), Math.max(pointer - 1, 0));
+    }
+
+    private ParameterParseException invalidParameter(IllegalArgumentException cause) {
+        var exception = invalidParameter(cause.getMessage());
+        exception.initCause(cause);
+        return exception;
     }
 
     /**
@@ -63,17 +415,53 @@ public class ParameterReader {
 
     /**
      * Reads an optional parameter from the buffer and parses it to the specified type if possible.
-     * If the key does not exist, it will return null.
+     * If the key does not exist, it will return null. An optional parameter without a value is
+     * true for a boolean, and null for any other type
      * @param <T> the type of the parameter to read
-     * @param key the key of the optional parameter
+     * @param key the key of the optional parameter, including its dashes
      * @param type the type of the parameter to read
      * @return the parameter read from the buffer
+     * @throws ParameterParseException if the value can not be parsed to the type
      */
     @SuppressWarnings("unchecked")
     public <T> T readOptional(String key, Class<T> type) {
         if(!optionals.containsKey(key)) return null;
-        // TODO: Implement the parsing of optional parameters to the specified type
-        return isPrimitive(type) ? (T) parsePrimitive(optionals.get(key), type) : null;
+        var value = optionals.get(key);
+        if(value == null)
+            return type == boolean.class || type == Boolean.class ? (T) Boolean.TRUE : null;
+        return readValue(value, type);
+    }
+
+    /**
+     * Parses a value which is not one of the parameters, like the value of a flag, to the specified type
+     * @param <T> the type to parse to
+     * @param value the value to parse
+     * @param type the type to parse to
+     * @return the parsed value
+     * @throws ParameterParseException if the value can not be parsed to the type
+     */
+    public <T> T readValue(CharSequence value, Class<T> type) {
+        return new ParameterReader(context, new CharSequence[] { value }).read(type, NO_ANNOTATIONS);
+    }
+
+    /**
+     * Reads the flag with the given name, which may be given with one or two dashes, as the specified type.
+     * A boolean flag is true when it is given without a value, and a flag which is not given
+     * is the default value of the type (null, or zero and false for primitives)
+     * @param <T> the type of the flag
+     * @param name the name of the flag, leading dashes are ignored
+     * @param type the type of the flag
+     * @return the value of the flag
+     * @throws ParameterParseException if the value can not be parsed to the type
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T readFlag(String name, Class<T> type) {
+        name = CommandHelper.getFlagName(name);
+        if(optionals.containsKey("-" + name))
+            return readOptional("-" + name, type);
+        if(optionals.containsKey("--" + name))
+            return readOptional("--" + name, type);
+        return (T) getDefaultValue(type);
     }
 
 }
@@ -0,0 +1,46 @@
+package jcow.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class FlagValuesTest {
+
+    @Test
+    void testSlots() {
+        var schema = FlagSchema.of("--verbose", "count");
+        var values = ParsedCommand.parse("run --verbose a -count 3 b").getFlagValues(schema);
+        assertEquals(0, schema.indexOf("-verbose"));
+        assertEquals(1, schema.indexOf("--count"));
+
+        assertTrue(values.isSet(0));
+        assertTrue(values.isSwitch(0));
+        assertTrue(values.isSet(1));
+        assertFalse(values.isSwitch(1));
+        assertEquals("3", values.getValue(1).toString());
+    }
+
+    @Test
+    void testMapView() {
+        var command = ParsedCommand.parse("run --verbose -count 3 -other x --switch");
+        var expected = new HashMap<String, String>();
+        expected.put("--verbose", null);
+        expected.put("-count", "3");
+        expected.put("-other", "x");
+        expected.put("--switch", null);
+
+        Map<String, String> flags = command.getFlagValues(FlagSchema.of("verbose", "count")).asMap();
+        assertEquals(expected, flags);
+        assertEquals(expected, command.getFlags());
+        assertTrue(flags.containsKey("-count"));
+        assertFalse(flags.containsKey("--count"));
+        assertNull(flags.get("--verbose"));
+        assertEquals("x", flags.get("-other"));
+    }
+}
@@ -0,0 +1,127 @@
+package jcow.handler;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import jcow.command.ICommand;
+import jcow.command.SimpleCommand;
+import jcow.command.annotations.Command;
+import jcow.command.annotations.Controller;
+
+public class CLIHandlerTest {
+
+    private static final AtomicInteger counter = new AtomicInteger();
+
+    @Command(sequential = true)
+    public static class CountCommand {
+
+        @Controller(isDefault = true)
+        public static int count() {
+            return counter.get();
+        }
+    }
+
+    private static CLIHandler createCli(String input, ByteArrayOutputStream output) {
+        return new CLIHandler(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)),
+            new PrintStream(output, false, StandardCharsets.UTF_8), null, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testReadsUntilEndOfInput() {
+        var input = new StringBuilder();
+        for (int i = 0; i < 10_000; i++)
+            input.append("echo ").append(i).append('\n');
+        input.append("missing\n").append("say ü");
+
+        var output = new ByteArrayOutputStream();
+        var cli = createCli(input.toString(), output);
+        var handler = cli.constructHandler();
+        handler.register("echo", new SimpleCommand(() -> "ok"));
+        handler.register("say", new SimpleCommand(() -> "ü"));
+
+        // Returns at the end of the input, with all of the output flushed
+        cli.handle();
+        var lines = output.toString(StandardCharsets.UTF_8).split(System.lineSeparator());
+        assertEquals(10_002, lines.length);
+        assertEquals("ok", lines[9_999]);
+        assertEquals("Unknown command.", lines[10_000]);
+        assertEquals("ü", lines[10_001]);
+    }
+
+    @Test
+    void testNullErrorMessages() {
+        var output = new ByteArrayOutputStream();
+        var cli = createCli("fail\nfail\necho\n", output);
+        var handler = cli.constructHandler();
+        handler.register("fail", new SimpleCommand(() -> {
+            throw new IllegalStateException();
+        }));
+        handler.register("echo", new SimpleCommand(() -> "ok"));
+
+        cli.handle();
+        var lines = output.toString(StandardCharsets.UTF_8).split(System.lineSeparator());
+        assertArrayEquals(new String[] {"java.lang.IllegalStateException", "java.lang.IllegalStateException", "ok"}, lines);
+    }
+
+    @Test
+    void testInputIsNotClosed() throws IOException {
+        var closed = new AtomicBoolean();
+        var input = new ByteArrayInputStream("echo\n".getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public void close() throws IOException {
+                closed.set(true);
+                super.close();
+            }
+        };
+        var output = new ByteArrayOutputStream();
+        var cli = new CLIHandler(input, new PrintStream(output, false, StandardCharsets.UTF_8));
+        cli.constructHandler().register("echo", new SimpleCommand(() -> "ok"));
+
+        cli.handle();
+        assertFalse(closed.get());
+        assertEquals("ok" + System.lineSeparator(), output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testBulkModeKeepsInputOrder() {
+        var input = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            input.append("inc ").append(i).append('\n');
+            if(i % 1_000 == 999)
+                input.append("count\n");
+        }
+
+        var output = new ByteArrayOutputStream();
+        var cli = createCli(input.toString(), output);
+        cli.enableBulkMode(4, 8);
+        var handler = cli.constructHandler();
+        handler.register("inc", (ICommand) context -> {
+            counter.incrementAndGet();
+            return context.getParameters()[0];
+        });
+        handler.register("count", new CommandWrapper(CountCommand.class));
+
+        counter.set(0);
+        cli.handle();
+        var lines = output.toString(StandardCharsets.UTF_8).split(System.lineSeparator());
+        assertEquals(5_005, lines.length);
+        int line = 0;
+        for (int i = 0; i < 5_000; i++) {
+            assertEquals(String.valueOf(i), lines[line++]);
+            // The sequential command sees all of the commands before it
+            if(i % 1_000 == 999)
+                assertEquals(String.valueOf(i + 1), lines[line++]);
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package jcow.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import jcow.command.CommandContext;
+import jcow.command.IContext;
+import jcow.command.ParsedCommand;
+import jcow.command.annotations.Controller;
+import jcow.command.annotations.FromContext;
+import jcow.command.annotations.FromFlag;
+import jcow.handler.types.TypeParsers;
+import jcow.helpers.ParameterParseException;
+import jcow.utils.Lazy;
+
+public class CommandWrapperTest {
+
+    public static class TestCommand {
+
+        @Controller(isDefault = true)
+        public static String echo(String message) {
+            return message;
+        }
+
+        @Controller
+        public static String repeat(String message) {
+            return message;
+        }
+
+        @Controller
+        public static String repeat(String message, int times) {
+            return message.repeat(times);
+        }
+
+        @Controller
+        public static String show(int value) {
+            return "int " + value;
+        }
+
+        @Controller
+        public static String show(double value) {
+            return "double " + value;
+        }
+
+        @Controller
+        public static String show(String value) {
+            return "string " + value;
+        }
+
+        @Controller
+        public static String sum(int[] values) {
+            return String.valueOf(java.util.Arrays.stream(values).sum());
+        }
+
+        @Controller
+        public static String names(String prefix, String... names) {
+            return prefix + String.join(",", names);
+        }
+
+        @Controller
+        public static String average(List<Double> values) {
+            return String.valueOf(values.stream().mapToDouble(Double::doubleValue).average().orElse(0));
+        }
+
+        @Controller
+        public static String greet(@FromFlag("times") int times, String name, @FromFlag("--loud") boolean loud, @FromContext IContext context) {
+            var greeting = ("hi " + name + " ").repeat(Math.max(times, 1)).trim();
+            return (loud ? greeting.toUpperCase() : greeting) + " " + context.getFlags().size();
+        }
+
+        @Controller
+        public static String pick(boolean first, Supplier<Payload> a, Lazy<Integer> b) {
+            return first ? a.get().value() : String.valueOf(b.get());
+        }
+
+        @Controller
+        public static String point(Point point, String label) {
+            return label + " " + point.x() + "," + point.y();
+        }
+
+        @Controller
+        public static CompletableFuture<Integer> later(int value) {
+            return CompletableFuture.supplyAsync(() -> value * 2);
+        }
+
+        @Controller
+        public static String paint(Color color, Range range) {
+            return color + " " + range.from() + ".." + range.to();
+        }
+
+        @Controller
+        public static String fail(boolean checked) throws Exception {
+            if(checked)
+                throw new Exception("checked failure");
+            throw new UnsupportedOperationException("unchecked failure");
+        }
+    }
+
+    public static class Palette {
+
+        @Controller
+        public static String mix(@FromFlag("base") Color base, List<Color> colors, Range... ranges) {
+            return base + " " + colors + " " + ranges.length;
+        }
+    }
+
+    public static class Unparsed {
+
+        @Controller
+        public static String run(Thread thread) {
+            return thread.getName();
+        }
+    }
+
+    public static class Counter {
+
+        @Controller
+        public final Counter nested;
+        private int count;
+
+        public Counter(Counter nested) {
+            this.nested = nested;
+        }
+
+        @Controller(isDefault = true)
+        public int add(int amount) {
+            return count += amount;
+        }
+    }
+
+    public enum Color { RED, GREEN, DARK_BLUE }
+
+    public record Range(int from, int to) {}
+
+    public record Point(int x, int y) {}
+
+    public record Payload(String value) {}
+
+    private static final AtomicInteger decodedPayloads = new AtomicInteger();
+
+    @BeforeAll
+    static void registerParsers() {
+        TypeParsers.register(Point.class, (context, arguments) -> new Point(arguments.readInt(), arguments.readInt()));
+        TypeParsers.register(Payload.class, (context, arguments) -> {
+            decodedPayloads.incrementAndGet();
+            return new Payload(arguments.readString());
+        });
+    }
+
+    private static String invoke(CommandWrapper wrapper, String... parameters) {
+        return wrapper.invoke(new CommandContext(parameters, Map.of()));
+    }
+
+    @ParameterizedTest
+    @EnumSource(InvocationMode.class)
+    void testOverloadByArity(InvocationMode mode) {
+        var wrapper = new CommandWrapper(TestCommand.class, mode);
+        assertEquals("ab", invoke(wrapper, "repeat", "ab"));
+        assertEquals("ababab", invoke(wrapper, "repeat", "ab", "3"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(InvocationMode.class)
+    void testOverloadByArgumentKind(InvocationMode mode) {
+        var wrapper = new CommandWrapper(TestCommand.class, mode);
+        assertEquals("int 3", invoke(wrapper, "show", "3"));
+        assertEquals("double 3.5", invoke(wrapper, "show", "3.5"));
+        assertEquals("string three", invoke(wrapper, "show", "three"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(InvocationMode.class)
+    void testDefaultController(InvocationMode mode) {
+        var wrapper = new CommandWrapper(TestCommand.class, mode);
+        assertEquals("hello", invoke(wrapper, "hello"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(InvocationMode.class)
+    void testMissingArguments(InvocationMode mode) {
+        var wrapper = new CommandWrapper(TestCommand.class, mode);
+        assertThrows(ParameterParseException.class, () -> invoke(wrapper, "repeat"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(InvocationMode.class)
+    void testOverflowingArgument(InvocationMode mode) {
+        var wrapper = new CommandWrapper(TestCommand.class, mode);
+        var exception = assertThrows(ParameterParseException.class, () -> invoke(wrapper, "repeat", "ab", "2147483648"));
+        assertEquals(1, exception.getSplitIndexAtFault());
+    }
+
+    @ParameterizedTest
+    @EnumSource(InvocationMode.class)
+    void testTypeParser(InvocationMode mode) {
+        var wrapper = new CommandWrapper(TestCommand.class, mode);
+        assertEquals("origin 0,1", invoke(wrapper, "point", "0", "1", "origin"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(InvocationMode.class)
+    void testEnumAndRecordParameters(InvocationMode mode) {
+        var wrapper = new CommandWrapper(TestCommand.class, mode);
+        assertEquals("RED 1..3", invoke(wrapper, "paint", "red", "1", "3"));
+        assertEquals("DARK_BLUE 0..2", invoke(wrapper, "paint", "Dark_Blue", "0", "2"));
+
+        var exception = assertThrows(ParameterParseException.class, () -> invoke(wrapper, "paint", "purple", "1", "3"));
+        assertEquals(0, exception.getSplitIndexAtFault());
+        assertThrows(ParameterParseException.class, () -> invoke(wrapper, "paint", "green", "1"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(InvocationMode.class)
+    void testInstanceCommand(InvocationMode mode) {
+        var counter = new Counter(new Counter(null));
+        var wrapper = new CommandWrapper(counter, mode);
+        assertEquals("2", invoke(wrapper, "add", "2"));
+        assertEquals("5", invoke(wrapper, "3"));
+        assertEquals("4", invoke(wrapper, "nested", "4"));
+        assertEquals(4, counter.nested.count);
+
+        var typeOnly = new CommandWrapper(Counter.class, mode);
+        assertThrows(IllegalStateException.class, () -> invoke(typeOnly, "add", "2"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(InvocationMode.class)
+    void testFutureResults(InvocationMode mode) {
+        var wrapper = new CommandWrapper(TestCommand.class, mode);
+        assertEquals("6", invoke(wrapper, "later", "3"));
+        assertEquals("8", wrapper.invokeAsync(new CommandContext(new String[] {"later", "4"}, Map.of())).join());
+        assertEquals("ab", wrapper.invokeAsync(new CommandContext(new String[] {"repeat", "ab"}, Map.of())).join());
+
+        var failed = wrapper.invokeAsync(new CommandContext(new String[] {"repeat"}, Map.of()));
+        assertTrue(failed.isCompletedExceptionally());
+    }
+
+    @ParameterizedTest
+    @EnumSource(InvocationMode.class)
+    void testControllerFailure(InvocationMode mode) {
+        var wrapper = new CommandWrapper(TestCommand.class, mode);
+        var unchecked = assertThrows(UnsupportedOperationException.class, () -> invoke(wrapper, "fail", "false"));
+        assertEquals("unchecked failure", unchecked.getMessage());
+        var checked = assertThrows(IllegalStateException.class, () -> invoke(wrapper, "fail", "true"));
+        assertEquals("checked failure", checked.getCause().getMessage());
+    }
+
+    @ParameterizedTest
+    @EnumSource(InvocationMode.class)
+    void testArgumentMismatch(InvocationMode mode) throws NoSuchMethodException {
+        var invoker = MethodInvoker.bind(TestCommand.class.getMethod("show", int.class), mode);
+        assertThrows(IllegalArgumentException.class, () -> invoker.invoke(null, new Object[] {null}));
+        assertThrows(IllegalArgumentException.class, () -> invoker.invoke(null, new Object[] {"3"}));
+        assertThrows(IllegalArgumentException.class, () -> invoker.invoke(null, new Object[0]));
+    }
+
+    @ParameterizedTest
+    @EnumSource(InvocationMode.class)
+    void testArrayParameters(InvocationMode mode) {
+        var wrapper = new CommandWrapper(TestCommand.class, mode);
+        assertEquals("10", invoke(wrapper, "sum", "1", "2,3", "4"));
+        assertEquals("0", invoke(wrapper, "sum"));
+        assertEquals("to: a,b", invoke(wrapper, "names", "to: ", "a", "b"));
+        assertEquals("2.5", invoke(wrapper, "average", "2", "3.0"));
+
+        var exception = assertThrows(ParameterParseException.class, () -> invoke(wrapper, "sum", "1", "2,x"));
+        assertEquals(1, exception.getSplitIndexAtFault());
+    }
+
+    @ParameterizedTest
+    @EnumSource(InvocationMode.class)
+    void testFlagAndContextParameters(InvocationMode mode) {
+        var wrapper = new CommandWrapper(TestCommand.class, mode);
+        assertEquals("hi bob 0", invoke(wrapper, "greet", "bob"));
+
+        var flags = new java.util.HashMap<String, String>();
+        flags.put("-times", "2");
+        flags.put("--loud", null);
+        assertEquals("HI BOB HI BOB 2", wrapper.invoke(new CommandContext(new String[] {"greet", "bob"}, flags)));
+
+        var invalid = new CommandContext(new String[] {"greet", "bob"}, Map.of("-times", "many"));
+        assertThrows(ParameterParseException.class, () -> wrapper.invoke(invalid));
+    }
+
+    @ParameterizedTest
+    @EnumSource(InvocationMode.class)
+    void testElementAndFlagParsers(InvocationMode mode) {
+        var wrapper = new CommandWrapper(Palette.class, mode);
+        var context = new CommandContext(new String[] {"mix", "red", "dark_blue"}, Map.of("-base", "green"));
+        assertEquals("GREEN [RED, DARK_BLUE] 0", wrapper.invoke(context));
+
+        var invalid = new CommandContext(new String[] {"mix"}, Map.of("-base", "purple"));
+        assertThrows(ParameterParseException.class, () -> wrapper.invoke(invalid));
+    }
+
+    @ParameterizedTest
+    @EnumSource(InvocationMode.class)
+    void testMissingParser(InvocationMode mode) {
+        assertThrows(IllegalArgumentException.class, () -> new CommandWrapper(Unparsed.class, mode));
+    }
+
+    @ParameterizedTest
+    @EnumSource(InvocationMode.class)
+    void testFlagSchema(InvocationMode mode) {
+        var wrapper = new CommandWrapper(TestCommand.class, mode);
+        assertEquals(2, wrapper.getFlagSchema().size());
+
+        var command = ParsedCommand.parse("test greet bob --loud -times 2 -unknown x");
+        var context = command.createContext(wrapper.getFlagSchema());
+        assertEquals("HI BOB HI BOB 3", wrapper.invoke(context));
+    }
+
+    @ParameterizedTest
+    @EnumSource(InvocationMode.class)
+    void testLazyParameters(InvocationMode mode) {
+        var wrapper = new CommandWrapper(TestCommand.class, mode);
+        int decoded = decodedPayloads.get();
+        assertEquals("7", invoke(wrapper, "pick", "false", "data", "7"));
+        assertEquals(decoded, decodedPayloads.get());
+
+        assertEquals("data", invoke(wrapper, "pick", "true", "data", "not a number"));
+        assertEquals(decoded + 1, decodedPayloads.get());
+        assertThrows(ParameterParseException.class, () -> invoke(wrapper, "pick", "false", "data", "not a number"));
+    }
+}
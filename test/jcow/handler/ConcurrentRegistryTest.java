@@ -0,0 +1,151 @@
+package jcow.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import jcow.command.SimpleCommand;
+
+public class ConcurrentRegistryTest {
+
+    private static final int THREADS = 8;
+
+    /**
+     * Runs the tasks at the same time and waits for all of them, rethrowing the first failure
+     */
+    private static <T> List<T> runConcurrently(List<Callable<T>> tasks) throws Exception {
+        var executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            var start = new CountDownLatch(1);
+            var futures = new ArrayList<Future<T>>();
+            for (var task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+
+            var results = new ArrayList<T>();
+            for (var future : futures)
+                results.add(future.get(30, TimeUnit.SECONDS));
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testConcurrentRegistration() throws Exception {
+        var handler = new CommandHandler();
+        var tasks = new ArrayList<Callable<Integer>>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            tasks.add(() -> {
+                int registered = 0;
+                for (int i = 0; i < 1_000; i++) {
+                    var name = "cmd-" + thread + "-" + i;
+                    if(handler.register(name, new SimpleCommand(() -> name)))
+                        registered++;
+                }
+                return registered;
+            });
+        }
+
+        for (var registered : runConcurrently(tasks))
+            assertEquals(1_000, registered.intValue());
+        assertEquals(THREADS * 1_000, handler.getCommands().size());
+        assertEquals("cmd-3-42", handler.invoke("cmd-3-42"));
+    }
+
+    @Test
+    void testRegistrationIsAtomic() throws Exception {
+        var handler = new CommandHandler();
+        var winners = new AtomicInteger();
+        var tasks = new ArrayList<Callable<Void>>();
+        for (int t = 0; t < THREADS; t++) {
+            tasks.add(() -> {
+                for (int i = 0; i < 500; i++) {
+                    if(handler.register("shared-" + i, new SimpleCommand(() -> "shared")))
+                        winners.incrementAndGet();
+                }
+                return null;
+            });
+        }
+
+        runConcurrently(tasks);
+        assertEquals(500, winners.get());
+        assertEquals(500, handler.getCommands().size());
+    }
+
+    @Test
+    void testDispatchWhileRegistering() throws Exception {
+        var ui = new InterfaceHandler() {
+            final ConcurrentLinkedQueue<String> errors = new ConcurrentLinkedQueue<>();
+
+            @Override
+            protected void handle() {}
+
+            @Override
+            protected void printError(String error) {
+                errors.add(error);
+            }
+        };
+        var stable = ui.constructHandler();
+        stable.register("ping", new SimpleCommand(() -> "pong"));
+        var plugins = (CommandHandler) ui.constructHandler();
+
+        var running = new AtomicBoolean(true);
+        var tasks = new ArrayList<Callable<Integer>>();
+        // Plugins are registered and unregistered, and handlers attached and detached, while commands are routed
+        tasks.add(() -> {
+            for (int i = 0; i < 2_000; i++) {
+                var name = "plugin-" + i;
+                plugins.register(name, new SimpleCommand(() -> name));
+                if(i % 2 == 0)
+                    assertNotNull(plugins.unregister(name));
+            }
+            running.set(false);
+            return 0;
+        });
+        tasks.add(() -> {
+            while(running.get()) {
+                var extra = new CommandHandler();
+                ui.attachHandler(extra);
+                ui.dettachHandler(extra);
+            }
+            return 0;
+        });
+        for (int t = 0; t < THREADS - 2; t++) {
+            tasks.add(() -> {
+                int handled = 0;
+                while(running.get()) {
+                    var results = ui.handleCommand("ping");
+                    assertEquals(1, results.length);
+                    assertEquals("pong", results[0]);
+                    handled++;
+                }
+                return handled;
+            });
+        }
+
+        runConcurrently(tasks);
+        assertTrue(ui.errors.isEmpty());
+        assertEquals(1_000, plugins.getCommands().size());
+        assertEquals("plugin-1999", ui.handleCommand("plugin-1999")[0]);
+        assertEquals(0, ui.handleCommand("plugin-1998").length);
+    }
+}
@@ -0,0 +1,246 @@
+package jcow.handler;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import jcow.command.SimpleCommand;
+
+public class InterfaceHandlerTest {
+
+    private static class TestInterface extends InterfaceHandler {
+        private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> results = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch delivered = new CountDownLatch(2);
+        private final CountDownLatch firstResult = new CountDownLatch(1);
+
+        private TestInterface(boolean multiHandleCommands) {
+            this.multiHandleCommands = multiHandleCommands;
+        }
+
+        @Override
+        protected void handle() {}
+
+        @Override
+        protected void printError(String error) {
+            errors.add(error);
+            delivered.countDown();
+        }
+
+        @Override
+        protected void printResult(String result) {
+            results.add(result);
+            firstResult.countDown();
+            delivered.countDown();
+        }
+    }
+
+    @Test
+    void testRoutingInAttachOrder() {
+        var ui = new TestInterface(true);
+        var first = ui.constructHandler();
+        var second = ui.constructHandler();
+        second.register("ping", new SimpleCommand(() -> "second"));
+        first.register("ping", new SimpleCommand(() -> "first"));
+
+        assertArrayEquals(new String[] {"first", "second"}, ui.handleCommand("ping"));
+        ui.dettachHandler(first);
+        assertArrayEquals(new String[] {"second"}, ui.handleCommand("ping"));
+    }
+
+    @Test
+    void testRoutingAfterRegister() {
+        var ui = new TestInterface(false);
+        var handler = ui.constructHandler();
+        assertFalse(ui.canHandle("status"));
+
+        handler.register("status", new SimpleCommand(() -> "ok"));
+        assertTrue(ui.canHandle("status"));
+        // Prefixes are not in the index, but are still offered to the handlers
+        assertArrayEquals(new String[] {"ok"}, ui.handleCommand("stat"));
+    }
+
+    @Test
+    void testRoutingAfterUnregister() {
+        var ui = new TestInterface(true);
+        var first = new CommandHandler();
+        var second = ui.constructHandler();
+        ui.attachHandler(first);
+        first.register("ping", new SimpleCommand(() -> "first"));
+        second.register("ping", new SimpleCommand(() -> "second"));
+        assertArrayEquals(new String[] {"second", "first"}, ui.handleCommand("ping"));
+
+        first.unregister("ping");
+        assertArrayEquals(new String[] {"second"}, ui.handleCommand("ping"));
+    }
+
+    @Test
+    void testCanHandleUnparsableCommand() {
+        var ui = new TestInterface(false);
+        var help = new HelpCommandHandler(ui);
+        var handler = ui.constructHandler();
+        handler.register("ping", new SimpleCommand(() -> "pong"));
+
+        assertFalse(handler.canHandle("ping \"unclosed"));
+        assertFalse(handler.canHandle("ping -flag"));
+        assertFalse(help.canHandle("help \"unclosed"));
+        assertFalse(ui.canHandle("ping \"unclosed"));
+        assertTrue(handler.canHandle("ping"));
+    }
+
+    @Test
+    void testHelpRouting() {
+        var ui = new TestInterface(false);
+        ui.attachHelpCommand();
+        ui.constructHandler().register("ping", new SimpleCommand(() -> "pong"));
+
+        assertTrue(ui.handleCommand("help")[0].contains("- ping"));
+        assertEquals(0, ui.handleCommand("helpme").length);
+        assertEquals(List.of("Unknown command."), ui.errors);
+    }
+
+    @Test
+    void testAsyncCommands() {
+        var ui = new TestInterface(false);
+        var pending = new CompletableFuture<String>();
+        var handler = ui.constructHandler();
+        handler.register("fetch", SimpleCommand.async(() -> pending));
+        handler.register("fail", SimpleCommand.async(() -> CompletableFuture.failedFuture(new IllegalStateException("offline"))));
+
+        var result = ui.executeAsync("fetch");
+        assertFalse(result.isDone());
+        pending.complete("data");
+        assertArrayEquals(new String[] {"data"}, result.join());
+
+        assertEquals(0, ui.executeAsync("fail").join().length);
+        assertEquals(List.of("offline"), ui.errors);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ResultOrder.class)
+    void testConcurrentResultOrder(ResultOrder order) throws InterruptedException {
+        var ui = new TestInterface(false);
+        ui.executeConcurrently(order);
+        var fastDone = new CountDownLatch(1);
+        // In completion order the slow command waits until the fast one has been delivered, not only executed
+        var slowStart = order == ResultOrder.SUBMISSION ? fastDone : ui.firstResult;
+        var handler = ui.constructHandler();
+        handler.register("slow", new SimpleCommand(() -> {
+            try {
+                slowStart.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "slow";
+        }));
+        handler.register("fast", new SimpleCommand(() -> {
+            fastDone.countDown();
+            return "fast";
+        }));
+
+        ui.dispatchCommand("slow");
+        ui.dispatchCommand("fast");
+        assertTrue(ui.delivered.await(5, TimeUnit.SECONDS));
+        ui.stop();
+
+        var expected = order == ResultOrder.SUBMISSION ? List.of("slow", "fast") : List.of("fast", "slow");
+        assertEquals(expected, ui.results);
+    }
+
+    @Test
+    void testFailingRouteKeepsOrder() throws InterruptedException {
+        var ui = new TestInterface(false);
+        ui.executeConcurrently(ResultOrder.SUBMISSION);
+        ui.attachHandler(new CommandHandler() {
+            @Override
+            public boolean canHandle(jcow.command.ParsedCommand command) {
+                throw new IllegalStateException("broken handler");
+            }
+        });
+        ui.constructHandler().register("ping", new SimpleCommand(() -> "pong"));
+
+        // The unrouted command fails while routing, which should not hold back the output after it
+        ui.dispatchCommand("boom");
+        ui.dispatchCommand("ping");
+        assertTrue(ui.delivered.await(5, TimeUnit.SECONDS));
+        ui.stop();
+        assertEquals(List.of("broken handler"), ui.errors);
+        assertEquals(List.of("pong"), ui.results);
+    }
+
+    @Test
+    void testConcurrencyLimit() throws InterruptedException {
+        var ui = new TestInterface(false);
+        ui.executeConcurrently(ResultOrder.COMPLETION);
+        var handler = ui.constructHandler();
+        ui.setConcurrencyLimit(handler, 1);
+
+        var running = new AtomicInteger();
+        var maxRunning = new AtomicInteger();
+        handler.register("work", new SimpleCommand(() -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            return "done";
+        }));
+
+        ui.dispatchCommand("work");
+        ui.dispatchCommand("work");
+        assertTrue(ui.delivered.await(5, TimeUnit.SECONDS));
+        ui.stop();
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    void testWaitingForLimitKeepsThreadFree() throws Exception {
+        var ui = new TestInterface(false);
+        var executor = Executors.newFixedThreadPool(2);
+        ui.executeConcurrently(executor, ResultOrder.COMPLETION);
+        var limited = ui.constructHandler();
+        ui.setConcurrencyLimit(limited, 1);
+        var release = new CountDownLatch(1);
+        limited.register("slow", new SimpleCommand(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "slow";
+        }));
+        ui.constructHandler().register("fast", new SimpleCommand(() -> "fast"));
+
+        // The second slow command waits for its permit without taking the last thread of the executor
+        ui.dispatchCommand("slow");
+        ui.dispatchCommand("slow");
+        ui.dispatchCommand("fast");
+        try {
+            assertTrue(ui.firstResult.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of("fast"), ui.results);
+            release.countDown();
+            assertTrue(ui.delivered.await(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(List.of("fast", "slow", "slow"), ui.results);
+    }
+}
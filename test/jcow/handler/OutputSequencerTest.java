@@ -0,0 +1,71 @@
+package jcow.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+public class OutputSequencerTest {
+
+    private static List<OutputSequencer.Output> output(String text) {
+        return List.of(new OutputSequencer.Output(text, false));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ResultOrder.class)
+    void testCompleteWhileDelivering(ResultOrder order) throws Exception {
+        var delivered = new CopyOnWriteArrayList<String>();
+        var delivering = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var sequencer = new OutputSequencer(order, output -> {
+            if(output.text().equals("first")) {
+                delivering.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            delivered.add(output.text());
+        });
+
+        var first = sequencer.take();
+        var second = sequencer.take();
+        var deliverer = CompletableFuture.runAsync(() -> sequencer.complete(first, output("first")));
+        assertTrue(delivering.await(5, TimeUnit.SECONDS));
+
+        // The second ticket is handed to the thread delivering the first one, without waiting for it
+        CompletableFuture.runAsync(() -> sequencer.complete(second, output("second"))).get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(), delivered);
+
+        release.countDown();
+        deliverer.get(5, TimeUnit.SECONDS);
+        sequencer.awaitPending(0);
+        assertEquals(List.of("first", "second"), delivered);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ResultOrder.class)
+    void testFailedDelivery(ResultOrder order) throws Exception {
+        var delivered = new CopyOnWriteArrayList<String>();
+        var sequencer = new OutputSequencer(order, output -> {
+            if(output.error())
+                throw new IllegalStateException(output.text());
+            delivered.add(output.text());
+        });
+
+        var ticket = sequencer.take();
+        assertThrows(IllegalStateException.class, () -> sequencer.complete(ticket, List.of(new OutputSequencer.Output("broken", true))));
+        sequencer.complete(sequencer.take(), output("next"));
+        sequencer.awaitPending(0);
+        assertEquals(List.of("next"), delivered);
+    }
+}
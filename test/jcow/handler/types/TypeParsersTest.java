@@ -0,0 +1,83 @@
+package jcow.handler.types;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class TypeParsersTest {
+
+    interface Shape {}
+    interface Polygon extends Shape {}
+    static class Square implements Polygon {}
+    static class Unit extends Square {}
+
+    record Tagged(String name, Square shape) {}
+    record Tree(int value, Branch branch) {}
+    record Branch(String name, Tree tree) {}
+
+    @AfterEach
+    void cleanup() {
+        TypeParsers.unregister(Shape.class);
+        TypeParsers.unregister(Square.class);
+        TypeParsers.unregister(List.class);
+    }
+
+    @Test
+    void testResolveInterface() {
+        TypeParser<Shape> parser = (context, arguments) -> new Square();
+        TypeParsers.register(Shape.class, parser);
+        assertSame(parser, TypeParsers.get(Unit.class));
+        assertSame(parser, TypeParsers.get(Polygon.class));
+    }
+
+    @Test
+    void testSuperclassBeforeInterface() {
+        TypeParser<Shape> shape = (context, arguments) -> new Square();
+        TypeParser<Square> square = (context, arguments) -> new Square();
+        TypeParsers.register(Shape.class, shape);
+        assertSame(shape, TypeParsers.get(Unit.class));
+
+        // Registering invalidates the parsers resolved before
+        TypeParsers.register(Square.class, square);
+        assertSame(square, TypeParsers.get(Unit.class));
+        assertSame(shape, TypeParsers.get(Polygon.class));
+    }
+
+    @Test
+    void testResolveGenericType() throws NoSuchMethodException {
+        TypeParser<List<?>> parser = (context, arguments) -> List.of();
+        TypeParsers.register(List.class, parser);
+        var type = TypeParsersTest.class.getDeclaredMethod("generic", List.class).getGenericParameterTypes()[0];
+        assertSame(parser, TypeParsers.get(type));
+        assertEquals(List.class, TypeParsers.getRawType(type));
+    }
+
+    @Test
+    void testMissingParser() {
+        assertNull(TypeParsers.get(Unit.class));
+    }
+
+    @Test
+    void testRecordWithoutComponentParser() {
+        assertThrows(IllegalArgumentException.class, () -> TypeParsers.get(Tagged.class));
+
+        TypeParsers.register(Square.class, (context, arguments) -> new Square());
+        assertNotNull(TypeParsers.get(Tagged.class));
+    }
+
+    @Test
+    void testRecursiveRecord() {
+        assertNotNull(TypeParsers.get(Tree.class));
+        assertNotNull(TypeParsers.get(Branch.class));
+    }
+
+    @SuppressWarnings("unused")
+    private static void generic(List<? extends Number> values) {}
+}
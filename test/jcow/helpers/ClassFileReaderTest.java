@@ -0,0 +1,51 @@
+package jcow.helpers;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import jcow.command.annotations.Command;
+import jcow.command.annotations.Controller;
+
+public class ClassFileReaderTest {
+
+    @Command(name = "annotated", alias = {"a", "b"})
+    @Deprecated(since = "1")
+    static class AnnotatedCommand {
+        @Controller
+        public static long value = 5L;
+
+        @Controller("run")
+        public static String run(String message) {
+            return message;
+        }
+    }
+
+    static class PlainClass {}
+
+    private static byte[] read(Class<?> type) throws IOException {
+        try(var stream = type.getResourceAsStream(type.getName().substring(type.getPackageName().length() + 1) + ".class")) {
+            return stream.readAllBytes();
+        }
+    }
+
+    @Test
+    void testAnnotatedClass() throws IOException {
+        assertTrue(ClassFileReader.hasAnnotation(read(AnnotatedCommand.class), Command.class));
+        assertTrue(ClassFileReader.hasAnnotation(read(AnnotatedCommand.class), Deprecated.class));
+    }
+
+    @Test
+    void testNotAnnotatedClass() throws IOException {
+        assertFalse(ClassFileReader.hasAnnotation(read(PlainClass.class), Command.class));
+        assertFalse(ClassFileReader.hasAnnotation(read(AnnotatedCommand.class), FunctionalInterface.class));
+    }
+
+    @Test
+    void testInvalidClassFile() {
+        assertFalse(ClassFileReader.hasAnnotation(new byte[] {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0, 0}, Command.class));
+    }
+}
@@ -1,6 +1,7 @@
 package jcow.helpers;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThrows;
 
 import org.junit.jupiter.api.Test;
@@ -35,6 +36,51 @@ public class CommandHelperTest {
         assertArrayEquals(expected, CommandHelper.splitParameters(input));
     }
 
+    @Test
+    void testWhitespaceRunSplitInput() {
+        var input = "  Test   parameter\tparsing  ";
+        var expected = new String[] {"Test","parameter", "parsing"};
+        assertArrayEquals(expected, CommandHelper.splitParameters(input));
+    }
+
+    @Test
+    void testCharBracketGroupingWithStringBracketsSplitInput() {
+        var input = "Test '{\"key\": \"some value\"}'";
+        var expected = new String[] {"Test","{\"key\": \"some value\"}"};
+        assertArrayEquals(expected, CommandHelper.splitParameters(input));
+    }
+
+    @Test
+    void testEscapedSplitInput() {
+        var input = "Test \"parameter\\ \\\"parsing\\\" simple\" escaped\\ space";
+        var expected = new String[] {"Test","parameter \"parsing\" simple", "escaped space"};
+        assertArrayEquals(expected, CommandHelper.splitParameters(input));
+    }
+
+    @Test
+    void testBracketInsideWordSplitInput() {
+        var input = "Test don't split";
+        var expected = new String[] {"Test","don't", "split"};
+        assertArrayEquals(expected, CommandHelper.splitParameters(input));
+    }
+
+    @Test
+    void testUnclosedBracketSplitInput() {
+        var input = "Test parameter \"parsing simple";
+        var exception = assertThrows(ParameterParseException.class, () -> CommandHelper.splitParameters(input));
+        assertEquals(2, exception.getSplitIndexAtFault());
+        assertEquals(input.indexOf('"') + 1, exception.getIndexAtFault());
+    }
+
+    @Test
+    void testSplitInputViews() {
+        var input = "Test \"parameter 'parsing simple'\" 12";
+        var views = CommandHelper.splitParameterViews(input);
+        assertEquals(3, views.length);
+        assertEquals(input.indexOf("parameter"), views[1].offset());
+        assertArrayEquals(CommandHelper.splitParameters(input), CommandHelper.toStrings(views));
+    }
+
     @Test
     void testGroupSimple() {
         var test = "some test of splitting";
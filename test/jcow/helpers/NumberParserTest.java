@@ -0,0 +1,61 @@
+package jcow.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+public class NumberParserTest {
+
+    @Test
+    void testWholeNumbers() {
+        assertEquals(42, NumberParser.parseInt("42"));
+        assertEquals(-42, NumberParser.parseInt("-42"));
+        assertEquals(7, NumberParser.parseInt("+7"));
+        assertEquals(Integer.MIN_VALUE, NumberParser.parseInt("-2147483648"));
+        assertEquals(Long.MAX_VALUE, NumberParser.parseLong("9223372036854775807"));
+        assertEquals(Long.MIN_VALUE, NumberParser.parseLong("-9223372036854775808"));
+        assertEquals(Short.MAX_VALUE, NumberParser.parseShort("32767"));
+        assertEquals(Byte.MIN_VALUE, NumberParser.parseByte("-128"));
+    }
+
+    @Test
+    void testWholeNumbersFromView() {
+        var line = "run 123 456";
+        assertEquals(123, NumberParser.parseInt(line.subSequence(4, 7)));
+        assertEquals(456L, NumberParser.parseLong(jcow.utils.CharSlice.of(line, 8, 11)));
+        assertEquals(22, NumberParser.parseInt("1,22,3", 2, 4));
+        assertEquals(2.5, NumberParser.parseDouble("1,2.5", 2, 5), 0);
+    }
+
+    @Test
+    void testInvalidWholeNumbers() {
+        assertThrows(NumberFormatException.class, () -> NumberParser.parseInt("3.9"));
+        assertThrows(NumberFormatException.class, () -> NumberParser.parseInt("2147483648"));
+        assertThrows(NumberFormatException.class, () -> NumberParser.parseLong("9223372036854775808"));
+        assertThrows(NumberFormatException.class, () -> NumberParser.parseByte("128"));
+        assertThrows(NumberFormatException.class, () -> NumberParser.parseInt(""));
+        assertThrows(NumberFormatException.class, () -> NumberParser.parseInt("-"));
+        assertThrows(NumberFormatException.class, () -> NumberParser.parseInt("12a"));
+    }
+
+    @Test
+    void testDecimalNumbers() {
+        String[] inputs = { "0", "-0", "3.9", "0.1", ".5", "5.", "-12.375", "1e10", "1.5E-7", "123456789.123456789",
+            "0.30000000000000004", "9007199254740993", "1e308", "1e-320", "NaN", "-Infinity" };
+        for (var input : inputs) {
+            assertEquals(input, Double.parseDouble(input), NumberParser.parseDouble(input), 0);
+            assertEquals(input, Float.parseFloat(input), NumberParser.parseFloat(input), 0);
+        }
+    }
+
+    @Test
+    void testInvalidDecimalNumbers() {
+        assertThrows(NumberFormatException.class, () -> NumberParser.parseDouble(""));
+        assertThrows(NumberFormatException.class, () -> NumberParser.parseDouble("."));
+        assertThrows(NumberFormatException.class, () -> NumberParser.parseDouble("1.2.3"));
+        assertThrows(NumberFormatException.class, () -> NumberParser.parseDouble("1e"));
+        assertThrows(NumberFormatException.class, () -> NumberParser.parseDouble("1d"));
+        assertThrows(NumberFormatException.class, () -> NumberParser.parseFloat("abc"));
+    }
+}
@@ -0,0 +1,61 @@
+package jcow.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+import jcow.command.annotations.Controller;
+
+public class ReflectionHelperTest {
+
+    public static class TestCommand {
+
+        @Controller("child")
+        public static Child field;
+
+        @Controller
+        public static String run(String message) {
+            return message;
+        }
+
+        @Controller
+        public static String run(String message, int times) {
+            return message.repeat(times);
+        }
+
+        public static String notAController() {
+            return "";
+        }
+    }
+
+    public static class Child {
+
+        @Controller("do")
+        public static String execute() {
+            return "";
+        }
+    }
+
+    @Test
+    void testControllerMethods() {
+        assertEquals(2, ReflectionHelper.getControllerMethods(TestCommand.class, "run").length);
+        assertEquals(0, ReflectionHelper.getControllerMethods(TestCommand.class, "notAController").length);
+        assertEquals("field", ReflectionHelper.getControllerField(TestCommand.class, "child").getName());
+    }
+
+    @Test
+    void testControllerPath() throws NoSuchMethodException {
+        var path = new String[] {"child", "do", "argument"};
+        assertEquals(1, ReflectionHelper.getPathLength(TestCommand.class, path));
+        assertEquals(Child.class.getMethod("execute"), ReflectionHelper.getMethod(TestCommand.class, path));
+        assertEquals(Integer.valueOf(1), ReflectionHelper.getAllMethodsAlongPath(TestCommand.class, path).get(Child.class.getMethod("execute")));
+        assertNull(ReflectionHelper.getMethod(TestCommand.class, new String[] {"unknown"}));
+    }
+
+    @Test
+    void testMembersAreCached() {
+        assertSame(ReflectionHelper.getControllerMethods(TestCommand.class), ReflectionHelper.getControllerMethods(TestCommand.class));
+    }
+}
@@ -0,0 +1,236 @@
+package jcow.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jcow.command.CommandContext;
+import jcow.command.ICommand;
+import jcow.handler.CommandWrapper;
+import jcow.helpers.ParameterParseException;
+import jcow.helpers.ReflectionHelper;
+
+public class CommandProcessorTest {
+
+    private static final String SOURCE = """
+        package demo;
+
+        import jcow.command.annotations.Command;
+        import jcow.command.annotations.Controller;
+        import jcow.command.annotations.FromContext;
+        import jcow.command.annotations.FromFlag;
+
+        @Command(alias = {"dm", "d\\\"q"}, sequential = true)
+        public class Demo {
+            @Controller(isDefault = true)
+            public static String echo(String message) { return message; }
+
+            @Controller
+            public static String show(int value) { return "int " + value; }
+
+            @Controller
+            public static String show(double value) { return "double " + value; }
+
+            @Controller
+            public static long sum(long... values) { return java.util.Arrays.stream(values).sum(); }
+
+            @Controller
+            public static String join(String separator, java.util.List<Integer> values) {
+                return values.stream().map(String::valueOf).collect(java.util.stream.Collectors.joining(separator));
+            }
+
+            @Controller
+            public static String flags(String name, @FromFlag("count") int count, @FromFlag("v") boolean verbose, @FromContext jcow.command.IContext context) {
+                return name + count + verbose + context.getFlags().size();
+            }
+
+            @Controller
+            public static String lazy(boolean parse, java.util.function.Supplier<Integer> value) {
+                return parse ? String.valueOf(value.get()) : "skipped";
+            }
+
+            @Controller
+            public static String point(Point point) { return point.x() + "," + point.y(); }
+
+            @Deprecated
+            @Controller
+            public static String old() { return "old"; }
+
+            @Controller
+            public static String fail(boolean checked) throws Exception {
+                if(checked)
+                    throw new Exception("checked failure");
+                throw new UnsupportedOperationException("unchecked failure");
+            }
+
+            public record Point(int x, int y) {}
+
+            public static final java.util.concurrent.CompletableFuture<Integer> PENDING = new java.util.concurrent.CompletableFuture<>();
+
+            @Controller
+            public static java.util.concurrent.CompletableFuture<Integer> pending() { return PENDING; }
+
+            @Controller
+            public static Child child;
+
+            public static class Child {
+                @Controller("add-up")
+                public static long add(int a, long b) { return a + b; }
+            }
+        }
+        """;
+
+    @TempDir
+    Path directory;
+
+    private Class<?> compile() throws Exception {
+        return compile(Map.of("demo/Demo.java", SOURCE), "demo.Demo");
+    }
+
+    private Class<?> compile(Map<String, String> sources, String className) throws Exception {
+        var output = directory.resolve("out");
+        Files.createDirectories(output);
+        var paths = new java.util.ArrayList<Path>();
+        for (var entry : sources.entrySet()) {
+            var source = directory.resolve("src").resolve(entry.getKey());
+            Files.createDirectories(source.getParent());
+            Files.writeString(source, entry.getValue());
+            paths.add(source);
+        }
+
+        var library = Path.of(ICommand.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        var compiler = ToolProvider.getSystemJavaCompiler();
+        try(var files = compiler.getStandardFileManager(null, null, null)) {
+            // The generated sources should compile without any warnings in the consumer build
+            var task = compiler.getTask(null, files, null, 
+                List.of("-classpath", library + java.io.File.pathSeparator + output, "-processor", CommandProcessor.class.getName(), "-d", output.toString(), "-Xlint:deprecation", "-Werror"),
+                null, files.getJavaFileObjectsFromPaths(paths));
+            assertTrue(task.call());
+        }
+
+        var loader = new URLClassLoader(new java.net.URL[] { output.toUri().toURL() }, getClass().getClassLoader());
+        return Class.forName(className, true, loader);
+    }
+
+    private static String invoke(ICommand command, String... parameters) {
+        return command.invoke(new CommandContext(parameters, Map.of()));
+    }
+
+    @Test
+    void testGeneratedDispatcher() throws Exception {
+        var command = CommandWrapper.wrap(compile());
+        assertFalse(command instanceof CommandWrapper);
+
+        assertEquals("hello", invoke(command, "hello"));
+        assertEquals("int 3", invoke(command, "show", "3"));
+        assertEquals("double 3.5", invoke(command, "show", "3.5"));
+        assertEquals("5", invoke(command, "child", "add-up", "2", "3"));
+        assertEquals("10", invoke(command, "sum", "1,2", "3", "4"));
+        assertEquals("1+2", invoke(command, "join", "+", "1,2"));
+        assertEquals("a0false0", invoke(command, "flags", "a"));
+        assertEquals("skipped", invoke(command, "lazy", "false", "x"));
+        assertEquals("4", invoke(command, "lazy", "true", "4"));
+        assertThrows(ParameterParseException.class, () -> invoke(command, "lazy", "true", "x"));
+        assertEquals("a3true2", command.invoke(new CommandContext(new String[] {"flags", "a"}, Map.of("--count", "3", "-v", "true"))));
+        assertEquals("3,4", invoke(command, "point", "3", "4"));
+        assertEquals("old", invoke(command, "old"));
+        assertEquals(List.of("dm", "d\"q"), List.copyOf(command.getAliases()));
+        assertTrue(command.isSequential());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGeneratedAsyncResult() throws Exception {
+        var type = compile();
+        var command = CommandWrapper.wrap(type);
+        var result = command.invokeAsync(new CommandContext(new String[] {"pending"}, Map.of()));
+        assertFalse(result.isDone());
+
+        ((java.util.concurrent.CompletableFuture<Integer>) type.getField("PENDING").get(null)).complete(7);
+        assertEquals("7", result.join());
+        assertEquals("7", invoke(command, "pending"));
+    }
+
+    @Test
+    void testGeneratedControllerFailure() throws Exception {
+        var command = CommandWrapper.wrap(compile());
+        var unchecked = assertThrows(UnsupportedOperationException.class, () -> invoke(command, "fail", "false"));
+        assertEquals("unchecked failure", unchecked.getMessage());
+        var checked = assertThrows(IllegalStateException.class, () -> invoke(command, "fail", "true"));
+        assertEquals("checked failure", checked.getCause().getMessage());
+    }
+
+    @Test
+    void testPackagePrivateController() throws Exception {
+        var tools = """
+            package demo.tools;
+
+            import jcow.command.annotations.Controller;
+
+            public class Tools {
+                @Controller
+                static String hidden() { return "hidden"; }
+            }
+            """;
+        var command = """
+            package demo;
+
+            import jcow.command.annotations.Command;
+            import jcow.command.annotations.Controller;
+
+            @Command
+            public class Outer {
+                @Controller
+                public static demo.tools.Tools tools;
+            }
+            """;
+        var type = compile(Map.of("demo/tools/Tools.java", tools, "demo/Outer.java", command), "demo.Outer");
+        var wrapped = CommandWrapper.wrap(type);
+        assertTrue(wrapped instanceof CommandWrapper);
+        assertEquals("hidden", invoke(wrapped, "tools", "hidden"));
+    }
+
+    @Test
+    void testCommandIndex() throws Exception {
+        compile();
+        var index = directory.resolve("out").resolve(ReflectionHelper.COMMAND_INDEX);
+        assertEquals(List.of("demo.Demo"), Files.readAllLines(index));
+    }
+
+    @Test
+    void testIncrementalCommandIndex() throws Exception {
+        compile();
+        var other = """
+            package demo;
+
+            @jcow.command.annotations.Command
+            public class Other {}
+            """;
+        // Only the new command is compiled, against the output of the previous compilation
+        compile(Map.of("demo/Other.java", other), "demo.Other");
+        var index = directory.resolve("out").resolve(ReflectionHelper.COMMAND_INDEX);
+        assertEquals(List.of("demo.Demo", "demo.Other"), Files.readAllLines(index));
+    }
+
+    @Test
+    void testGeneratedDispatcherMatchesWrapper() throws Exception {
+        var type = compile();
+        var generated = CommandWrapper.wrap(type);
+        var wrapper = new CommandWrapper(type);
+        for (var parameters : List.of(new String[] {"hi"}, new String[] {"show", "1e2"}, new String[] {"child", "add-up", "-4", "10"},
+                new String[] {"sum"}, new String[] {"sum", "5", "6,7"}, new String[] {"join", "-", "3", "4"}))
+            assertEquals(invoke(wrapper, parameters), invoke(generated, parameters));
+    }
+}
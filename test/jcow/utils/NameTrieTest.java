@@ -0,0 +1,52 @@
+package jcow.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class NameTrieTest {
+
+    @Test
+    void testExactLookup() {
+        var trie = NameTrie.<String>empty().with("help", "help").with("hello", "hello");
+        assertEquals(trie, trie.with("help", "other"));
+
+        assertEquals("help", trie.get("help"));
+        assertEquals("hello", trie.get(CharSlice.of("say hello", 4, 9)));
+        assertNull(trie.get("hel"));
+        assertEquals(2, trie.size());
+    }
+
+    @Test
+    void testPrefixLookup() {
+        var trie = NameTrie.<String>empty().with("status", "status").with("st", "status").with("stop", "stop");
+
+        assertEquals("status", trie.getByPrefix("stat"));
+        assertEquals("stop", trie.getByPrefix("sto"));
+        assertEquals("status", trie.getByPrefix("st"));
+        assertNull(trie.getByPrefix("s"));
+        assertNull(trie.getByPrefix("start"));
+        assertNull(trie.without("stop").getByPrefix(""));
+
+        var removed = trie.without("stop");
+        assertEquals("status", removed.getByPrefix("s"));
+        assertEquals("stop", trie.getByPrefix("sto"));
+        assertEquals(List.of("st", "status"), removed.names());
+        assertEquals(0, removed.without("st").without("status").size());
+    }
+
+    @Test
+    void testManyNames() {
+        var trie = NameTrie.<Integer>empty();
+        for (int i = 0; i < 20_000; i++)
+            trie = trie.with("admin-" + i + "-run", i);
+
+        assertEquals(20_000, trie.size());
+        assertEquals(Integer.valueOf(12345), trie.get("admin-12345-run"));
+        assertEquals(Integer.valueOf(19999), trie.getByPrefix("admin-19999"));
+        assertNull(trie.getByPrefix("admin-1999"));
+    }
+}